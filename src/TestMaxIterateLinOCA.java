@@ -14,9 +14,10 @@ import boolfun.ConvertLinANFtoTT;
 import boolfun.CheckProp;
 import boolfun.BooleanFunction;
 import boolfun.BinTools;
-import boolfun.MatrixMultiplication;
+import boolfun.GF2Matrix;
+import boolfun.OrderTools;
+import boolfun.RuleId;
 import java.math.BigInteger;
-import java.util.Vector;
 
 public class TestMaxIterateLinOCA {
     
@@ -43,61 +44,71 @@ public class TestMaxIterateLinOCA {
     }
     
     /**
-     * Check if the order of an invertible matrix in the general linear group
-     * is the maximum period 2^{2n}-1
+     * Compute the order of an invertible matrix in the general linear group,
+     * if it divides the maximum period 2^{2n}-1 (see OrderTools.findOrder)
      */
-    public static int findOrder(boolean[][] matrix, Vector<Integer> div) {
-        
-        int i=0;
-        int n = matrix.length;
-        int max = (int)Math.pow(2, n) - 1;
-        int ord = -1;
-        boolean found = false;
-        while(i<div.capacity() && !found) {
-            
-            boolean[][] exp = MatrixMultiplication.expSqMatrix(matrix, div.elementAt(i), n);
-            found = MatrixMultiplication.isIdentity(exp);
-            
-            if(found) {
-                
-                ord = div.elementAt(i);
-                
-            }
-            
-            i++;
-            
+    public static BigInteger findOrder(boolean[][] matrix) {
+        
+        GF2Matrix packed = GF2Matrix.fromBool(matrix);
+        
+        //Maximal period iff the minimal polynomial is primitive of degree
+        //2n: in that case, skip the exponentiations of the matrix
+        if(OrderTools.hasPrimitiveMinPoly(packed)) {
+            return BigInteger.ONE.shiftLeft(matrix.length)
+                    .subtract(BigInteger.ONE);
+        }
+        
+        return OrderTools.findOrder(packed);
+        
+    }
+    
+    /**
+     * Check the orthogonality of two linear CA by building their Latin
+     * squares (the path used before the GCD-based check, kept for the
+     * verification mode).
+     */
+    public static boolean checkOrthogSquares(OneDimCellAut ca, long[] rule1,
+            long[] rule2, int d) {
+        
+        int funclength = (int)Math.pow(2, d);
+        
+        //Orthogonal CA must have pairwise balanced local rules: skip
+        //the construction of the squares if the pairs table is not uniform
+        int[] card = LatinSquareTools.checkPairsTable(rule1, rule2, funclength);
+        if(!LatinSquareTools.isBalancedTable(card)) {
+            return false;
         }
         
-        return ord;
+        ca.setRule(BinTools.packed2Bool(rule1, funclength));
+        int[][] matrix1 = BuildLatSqCA.buildSqMatCA(ca,d-1);
+        
+        ca.setRule(BinTools.packed2Bool(rule2, funclength));
+        int[][] matrix2 = BuildLatSqCA.buildSqMatCA(ca,d-1);
+        
+        return LatinSquareTools.checkOrthogLatSquare(matrix1, matrix2);
         
     }
     
     public static void main(String[] args) {
         
-        if(args.length!= 1) {
+        if(args.length < 1 || args.length > 2 ||
+                (args.length == 2 && !args[1].equals("verify"))) {
             
             System.err.println("Usage: java lowlevelfunc.oa.TestMaxIterateLinOCA"
-                                +" diameter");
+                                +" diameter [verify]");
             System.exit(1);
             
         }
         
         int d = Integer.parseInt(args[0]);  //diameter of the local rules
+        boolean verify = (args.length == 2);   //cross-check with the squares
         int n = d-1;                        //degree of the polynomials
         int numlin = (int)Math.pow(2,d-2);  //number of linear bipermutive rules    
         
-        int maxord = (int)Math.pow(2,2*n) - 1;  //maximum period attainable by a linear orthogonal
-        //Compute the list of divisors of the order of GL(2,2n), up to 2^{2n}-1
-        Vector<Integer> div = new Vector<Integer>();
-        for(int i=1; i<=maxord; i++) {
-            
-            if(maxord%i == 0) {
-                div.add(i);
-            }
-            
-        }
-        
-        div.trimToSize();
+        //Maximum period attainable by a linear orthogonal CA, and its
+        //divisors (the possible orders of the Sylvester matrices)
+        BigInteger maxord = BigInteger.ONE.shiftLeft(2*n).subtract(BigInteger.ONE);
+        BigInteger[] div = OrderTools.divisorsMersenne(2*n);
 
         //Instantiate the CA
         OneDimCellAut ca = new OneDimCellAut(2*(d-1), null, d, 0);
@@ -107,10 +118,14 @@ public class TestMaxIterateLinOCA {
         System.out.println("Number of linear rules: "+numlin);
         System.out.println("Maximum period attainable by linear orthogonal sequences: "+maxord);
         System.out.print("Divisors of the maximum order: ");
-        for(int i=0; i<div.capacity(); i++)
-            System.out.print(div.elementAt(i)+" ");
+        for(int i=0; i<div.length; i++)
+            System.out.print(div[i]+" ");
         System.out.println("\n");
 
+        //Packed truth tables of all linear bipermutive rules, built once
+        int funclength = (int)Math.pow(2, d);
+        long[][] lintables = ConvertLinANFtoTT.linBipBatch(d);
+
         //Main loop: cycle over all pairs of linear bipermutive rules of diameter d
         for(int l=0; l<numlin-1; l++) {
             
@@ -121,7 +136,8 @@ public class TestMaxIterateLinOCA {
             }
             fullcoeffl[0] = true;
             fullcoeffl[d-1] = true;
-            boolean[] biprule1 = ConvertLinANFtoTT.convAnf2Tt(fullcoeffl);
+            boolean[] biprule1 = BinTools.packed2Bool(lintables[l],
+                    funclength);
             
             for(int m=l+1; m<numlin; m++) {
 
@@ -133,41 +149,43 @@ public class TestMaxIterateLinOCA {
                 }
                 fullcoeffm[0] = true;
                 fullcoeffm[d-1] = true;
-                boolean[] biprule2 = ConvertLinANFtoTT.convAnf2Tt(fullcoeffm);
                 
-                BigInteger biprulenum1 = BinTools.bin2DecBig(biprule1);
-                BigInteger biprulenum2 = BinTools.bin2DecBig(biprule2);
-
-                //Build the corresponding two Latin squares and check for orthogonality
-                ca.setRule(biprule1);
-                int[][] matrix1 = BuildLatSqCA.buildSqMatCA(ca,d-1);
-
-                ca.setRule(biprule2);
-                int[][] matrix2 = BuildLatSqCA.buildSqMatCA(ca,d-1);
-
-                boolean orthog = LatinSquareTools.checkOrthogLatSquare(
-                            matrix1, matrix2);
+                //Linear CA are orthogonal iff their polynomials are coprime
+                boolean orthog = BuildLatSqCA.checkOrthogLinCA(fullcoeffl,
+                        fullcoeffm);
+                
+                //In verification mode, compare with the check on the squares
+                if(verify && orthog != checkOrthogSquares(ca, lintables[l],
+                        lintables[m], d)) {
+                    
+                    System.err.println("Orthogonality mismatch on rules "+
+                            RuleId.fromBool(biprule1)+" and "+
+                            RuleId.fromBool(BinTools.packed2Bool(
+                                    lintables[m], funclength)));
+                    System.exit(1);
+                    
+                }
 
                 //If orthogonal, print info
                 if(orthog) {
 
-                    BooleanFunction bf1 = new BooleanFunction(biprule1,d);
-                    CheckProp.computeANF(bf1);
+                    boolean[] biprule2 = BinTools.packed2Bool(lintables[m],
+                            funclength);
 
+                    //The ANFs and the nonlinearities are computed on first
+                    //access by the getters
+                    BooleanFunction bf1 = new BooleanFunction(biprule1,d);
                     BooleanFunction bf2 = new BooleanFunction(biprule2,d);
-                    CheckProp.computeANF(bf2);
-
-                    int[] card = LatinSquareTools.checkPairsTable(biprule1, biprule2);
 
-                    System.out.print("Rule: "+biprulenum1+" NL: "+
+                    System.out.print("Rule: "+RuleId.fromBool(biprule1)+" NL: "+
                             bf1.getNlin()+"; POL: "+CheckProp.printPolynomial(bf1)+"; ");
-                    System.out.print("Rule: "+biprulenum2+" NL: "+
+                    System.out.print("Rule: "+RuleId.fromBool(biprule2)+" NL: "+
                             bf2.getNlin()+"; POL: "+CheckProp.printPolynomial(bf2)+"; ");
 
                     System.out.print("Order: ");
                     //Compute the order of the Sylvester matrix
                     boolean[][] syl = buildSylvesterMatrix(fullcoeffl, fullcoeffm);
-                    int order = findOrder(syl, div);
+                    BigInteger order = findOrder(syl);
                     System.out.println(order);
                     
                     
@@ -55,7 +55,7 @@ public class BinTools {
         for(int i=0; i<bNum.length; i++) {
             
              if(bNum[i]) {
-                 dNum += Math.pow(2, i);
+                 dNum |= 1 << i;
              }
              
         }
@@ -104,20 +104,36 @@ public class BinTools {
      */
     public static boolean[] dec2BinMod(int dNum, int length) {
         
-        boolean[] bNum = new boolean[length];
-        int temp = dNum;
-        int i = 0;
-
-        while(temp!=0) {
-
-            int mod = temp%2;
-            temp = temp/2;
-
-            if(mod==1) {
-                bNum[i] = true;
-            }
+        return dec2BinMod(dNum, new boolean[length]);
 
-            i++;
+    }
+    
+    /**
+     * Converts a nonnegative decimal number in a binary string, stored in an
+     * array given by the caller whose length is the length of the string.
+     * 
+     * @param   dNum    a nonnegative decimal number
+     * @param   bNum    the array where the binary string is stored
+     * @return  bNum    the array bNum
+     * @throws  ArrayIndexOutOfBoundsException if dNum does not fit in
+     *          bNum.length bits
+     */
+    public static boolean[] dec2BinMod(int dNum, boolean[] bNum) {
+        
+        //Fail as the division-based conversion did, instead of truncating
+        int nbits = 32 - Integer.numberOfLeadingZeros(dNum);
+        if(nbits > bNum.length) {
+            throw new ArrayIndexOutOfBoundsException(dNum+" does not fit in "
+                    +bNum.length+" bits");
+        }
+        
+        //The shift count is taken mod 32, so the bits from 32 up are 0
+        int low = Math.min(bNum.length, 32);
+        for(int i=0; i<low; i++) {
+            bNum[i] = ((dNum >>> i) & 1) != 0;
+        }
+        for(int i=low; i<bNum.length; i++) {
+            bNum[i] = false;
         }
 
         return bNum;
@@ -333,6 +349,175 @@ public class BinTools {
         
     }
     
+    /**
+     * Computes the Hamming weight of a boolean vector packed in 64-bit words
+     * (see bool2Packed).
+     * 
+     * @param   packed  the packed vector
+     * @return          the Hamming weight of packed
+     */
+    public static int hwt(long[] packed) {
+        
+        int weight = 0;
+        
+        for(int w=0; w<packed.length; w++) {
+            weight += Long.bitCount(packed[w]);
+        }
+        
+        return weight;
+        
+    }
+    
+    /**
+     * Computes the scalar product between two boolean vectors packed in 64-bit
+     * words, as the parity of the Hamming weight of their bitwise AND.
+     * 
+     * @param   vect1   first packed vector
+     * @param   vect2   second packed vector, of the same length
+     * @return          the scalar product of vect1 and vect2
+     */
+    public static boolean scalarProduct(long[] vect1, long[] vect2) {
+        
+        long acc = 0L;
+        
+        for(int w=0; w<vect2.length; w++) {
+            acc ^= vect1[w] & vect2[w];
+        }
+        
+        return (Long.bitCount(acc) & 1) != 0;
+        
+    }
+    
+    /**
+     * Inverts the order of a boolean vector packed in 64-bit words.
+     * 
+     * @param   packed  the packed vector
+     * @param   length  the length of the vector
+     * @return          the reverse of packed
+     */
+    public static long[] reverse(long[] packed, int length) {
+        
+        return new BitVector(packed, length).reverse().getWords();
+        
+    }
+    
+    /**
+     * Converts a binary string packed in 64-bit words in a decimal number
+     * (long version, for strings of at most 63 bits).
+     * 
+     * @param   packed  the packed binary string
+     * @return          the conversion of packed as a decimal number
+     */
+    public static long packed2Dec(long[] packed) {
+        
+        return (packed.length == 0) ? 0L : packed[0];
+        
+    }
+    
+    /**
+     * Packs a binary string represented as a boolean array in an array of
+     * 64-bit words. Position i of the string is stored in bit (i mod 64) of
+     * word i/64 (LSBF order), and the unused bits of the last word are 0.
+     * 
+     * @param   boolstr the binary string represented as a boolean array
+     * @return  packed  the binary string packed in 64-bit words
+     */
+    public static long[] bool2Packed(boolean[] boolstr) {
+        
+        return bool2Packed(boolstr, new long[(boolstr.length+63) >>> 6]);
+        
+    }
+    
+    /**
+     * Packs a binary string in 64-bit words (see bool2Packed(boolean[])),
+     * storing the result in an array given by the caller.
+     * 
+     * @param   boolstr the binary string represented as a boolean array
+     * @param   packed  the array where the packed string is stored (at least
+     *                  ceil(boolstr.length/64) words)
+     * @return  packed  the array packed
+     */
+    public static long[] bool2Packed(boolean[] boolstr, long[] packed) {
+        
+        int nwords = (boolstr.length+63) >>> 6;
+        for(int w=0; w<nwords; w++) {
+            packed[w] = 0L;
+        }
+        
+        for(int i=0; i<boolstr.length; i++) {
+            
+            if(boolstr[i]) {
+                packed[i >>> 6] |= 1L << i;
+            }
+            
+        }
+        
+        return packed;
+        
+    }
+    
+    /**
+     * Converts a binary string packed in 64-bit words (LSBF order) in a
+     * decimal number, without building intermediate powers of 2.
+     * 
+     * @param   packed  the binary string packed in 64-bit words
+     * @return  dNum    the conversion of packed as a decimal number
+     */
+    public static BigInteger packed2DecBig(long[] packed) {
+        
+        //Big-endian two's complement bytes, with a leading zero byte for
+        //the sign
+        byte[] bytes = new byte[8*packed.length+1];
+        
+        for(int w=0; w<packed.length; w++) {
+            
+            long word = packed[w];
+            int pos = bytes.length-1-8*w;
+            for(int b=0; b<8; b++) {
+                bytes[pos-b] = (byte)(word >>> (8*b));
+            }
+            
+        }
+        
+        return new BigInteger(bytes);
+        
+    }
+    
+    /**
+     * Unpacks a binary string stored in 64-bit words (LSBF order) in a
+     * boolean array.
+     * 
+     * @param   packed  the binary string packed in 64-bit words
+     * @param   length  the length of the binary string
+     * @return  boolstr the binary string represented as a boolean array
+     */
+    public static boolean[] packed2Bool(long[] packed, int length) {
+        
+        return packed2Bool(packed, new boolean[length]);
+        
+    }
+    
+    /**
+     * Unpacks a binary string stored in 64-bit words (LSBF order) in a
+     * boolean array given by the caller, whose length is the length of the
+     * string.
+     * 
+     * @param   packed  the binary string packed in 64-bit words
+     * @param   boolstr the array where the binary string is stored
+     * @return  boolstr the array boolstr
+     */
+    public static boolean[] packed2Bool(long[] packed, boolean[] boolstr) {
+        
+        for(int i=0; i<boolstr.length; i++) {
+            
+            boolstr[i] = ((packed[i >>> 6] >>> i) & 1L) != 0;
+            
+        }
+        
+        return boolstr;
+        
+    }
+    
     public static boolean[] String2BoolStr(String binstr) {
         
         boolean[] toRet = new boolean[binstr.length()];
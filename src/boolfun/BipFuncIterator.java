@@ -0,0 +1,79 @@
+package boolfun;
+
+import java.util.Arrays;
+
+/**
+ * Iterator over all bipermutive boolean functions of a given number of
+ * variables, in increasing order of their codes (see BoolFunReps). The truth
+ * tables are packed in 64-bit words, and the same array is overwritten at
+ * each step, so that the enumeration does not allocate: a caller which needs
+ * to keep a truth table must copy it.
+ * 
+ * @author Luca Mariot
+ * @version 1.0
+ */
+
+public class BipFuncIterator {
+    
+    private int nvar;           //number of variables of the functions
+    private RuleId code;        //code of the current function
+    private long[] ttable;      //packed truth table of the current function
+    private boolean started;    //true after the first call to next()
+    
+    /**
+     * Class constructor.
+     * 
+     * @param nvar the number of variables of the functions (at least 2).
+     */
+    public BipFuncIterator(int nvar) {
+        
+        this.nvar = nvar;
+        this.code = new RuleId(1 << (nvar-2));
+        this.ttable = new long[BitVector.nwords(1 << nvar)];
+        
+    }
+    
+    /**
+     * Moves to the next bipermutive function, whose truth table is then
+     * returned by getTtable(). The first call moves to the function of code
+     * 0.
+     * 
+     * @return false if all functions have been enumerated, true otherwise.
+     */
+    public boolean next() {
+        
+        if(started && !code.increment()) {
+            return false;
+        }
+        started = true;
+        BoolFunReps.decodeBipFunc(code.getWords(), nvar, ttable);
+        
+        return true;
+        
+    }
+    
+    /**
+     * Restarts the enumeration from the function of code 0.
+     */
+    public void reset() {
+        
+        Arrays.fill(code.getWords(), 0L);
+        started = false;
+        
+    }
+
+    //Getters
+
+    public int getNvar() {
+        return nvar;
+    }
+
+    public RuleId getCode() {
+        return code;
+    }
+
+    public long[] getTtable() {
+        return ttable;
+    }
+    
+}
@@ -0,0 +1,393 @@
+package boolfun;
+
+import java.util.Arrays;
+
+/**
+ * Binary vector packed in 64-bit words. Position i of the vector is stored in
+ * bit (i mod 64) of word i/64 (LSBF order, as in BinTools.bool2Packed), and
+ * the unused bits of the last word are always 0, so that the Hamming weight,
+ * the scalar product and the comparisons can work on whole words. The static
+ * methods provide the same operations on vectors of at most 64 bits held in a
+ * single long.
+ *
+ * @author  Luca Mariot
+ * @version 1.0
+ */
+
+public class BitVector {
+
+    private long[] words;       //packed bits
+    private int length;         //number of bits of the vector
+
+    /**
+     * Class constructor, which builds the null vector of the given length.
+     *
+     * @param length the number of bits of the vector
+     */
+    public BitVector(int length) {
+
+        this.words = new long[nwords(length)];
+        this.length = length;
+
+    }
+
+    /**
+     * Class constructor, which wraps an array of packed words without copying
+     * it. The unused bits of the last word must be 0.
+     *
+     * @param words  the packed bits of the vector
+     * @param length the number of bits of the vector
+     */
+    public BitVector(long[] words, int length) {
+
+        this.words = words;
+        this.length = length;
+
+    }
+
+    /**
+     * Builds a vector from a binary string represented as a boolean array.
+     *
+     * @param boolstr a binary string (LSBF order)
+     * @return        the packed vector
+     */
+    public static BitVector fromBool(boolean[] boolstr) {
+
+        return new BitVector(BinTools.bool2Packed(boolstr), boolstr.length);
+
+    }
+
+    /**
+     * Builds a vector from the length lowest bits of a number.
+     *
+     * @param value  a number, whose bit i is position i of the vector
+     * @param length the number of bits of the vector (at most 64)
+     * @return       the packed vector
+     */
+    public static BitVector fromLong(long value, int length) {
+
+        BitVector vect = new BitVector(length);
+        vect.setLong(value);
+
+        return vect;
+
+    }
+
+    /**
+     * Returns the number of 64-bit words needed to hold a vector.
+     *
+     * @param length the number of bits of the vector
+     * @return       ceil(length/64)
+     */
+    public static int nwords(int length) {
+
+        return (length+63) >>> 6;
+
+    }
+
+    /**
+     * Returns the mask of the length lowest bits of a word.
+     *
+     * @param length a number of bits between 0 and 64
+     * @return       the mask with the length lowest bits set
+     */
+    public static long mask(int length) {
+
+        return (length == 64) ? -1L : (1L << length) - 1;
+
+    }
+
+    /**
+     * Computes the scalar product of two vectors held in single words, as the
+     * parity of their bitwise AND.
+     *
+     * @param vect1 first vector
+     * @param vect2 second vector
+     * @return      the scalar product of vect1 and vect2 over GF(2)
+     */
+    public static boolean scalarProduct(long vect1, long vect2) {
+
+        return (Long.bitCount(vect1 & vect2) & 1) != 0;
+
+    }
+
+    /**
+     * Inverts the order of the length lowest bits of a word.
+     *
+     * @param vect   a vector held in a single word
+     * @param length the number of bits of the vector (between 1 and 64)
+     * @return       the reverse of vect
+     */
+    public static long reverse(long vect, int length) {
+
+        return Long.reverse(vect) >>> (64-length);
+
+    }
+
+    public boolean get(int i) {
+        return ((words[i >>> 6] >>> i) & 1L) != 0;
+    }
+
+    public void set(int i, boolean val) {
+
+        if(val) {
+            words[i >>> 6] |= 1L << i;
+        } else {
+            words[i >>> 6] &= ~(1L << i);
+        }
+
+    }
+
+    public void flip(int i) {
+        words[i >>> 6] ^= 1L << i;
+    }
+
+    /**
+     * Sets all the bits of the vector to 0.
+     */
+    public void clear() {
+
+        for(int w=0; w<words.length; w++) {
+            words[w] = 0L;
+        }
+
+    }
+
+    /**
+     * Computes the Hamming weight of the vector.
+     *
+     * @return the number of bits set to 1
+     */
+    public int hwt() {
+
+        return BinTools.hwt(words);
+
+    }
+
+    /**
+     * Computes the scalar product between this vector and another one of the
+     * same length.
+     *
+     * @param other a vector of the same length
+     * @return      the scalar product of the two vectors over GF(2)
+     */
+    public boolean scalarProduct(BitVector other) {
+
+        return BinTools.scalarProduct(words, other.words);
+
+    }
+
+    /**
+     * Inverts the order of the vector. The words are reversed with
+     * Long.reverse and then shifted back by the number of unused bits of the
+     * last word.
+     *
+     * @return the reverse of the vector
+     */
+    public BitVector reverse() {
+
+        int nw = words.length;
+        long[] rev = new long[nw];
+        int pad = (nw << 6) - length;
+
+        for(int w=0; w<nw; w++) {
+            rev[nw-1-w] = Long.reverse(words[w]);
+        }
+
+        //Shift the whole array right by pad bits
+        if(pad > 0) {
+            for(int w=0; w<nw; w++) {
+                long hi = (w+1 < nw) ? rev[w+1] << (64-pad) : 0L;
+                rev[w] = (rev[w] >>> pad) | hi;
+            }
+        }
+
+        return new BitVector(rev, length);
+
+    }
+
+    /**
+     * Extracts len bits starting from position from.
+     *
+     * @param from the first position of the slice
+     * @param len  the number of bits of the slice
+     * @return     the vector with bits from..from+len-1 of this vector
+     */
+    public BitVector slice(int from, int len) {
+
+        BitVector sub = new BitVector(len);
+
+        for(int w=0; w<sub.words.length; w++) {
+            sub.words[w] = getWord(from + (w << 6));
+        }
+        sub.trim();
+
+        return sub;
+
+    }
+
+    /**
+     * Concatenates this vector with another one, which takes the positions
+     * following the last position of this vector.
+     *
+     * @param other the vector to append
+     * @return      the concatenation of the two vectors
+     */
+    public BitVector concat(BitVector other) {
+
+        BitVector cat = new BitVector(length + other.length);
+        System.arraycopy(words, 0, cat.words, 0, words.length);
+
+        int shift = length & 63;
+        int base = length >>> 6;
+        for(int w=0; w<other.words.length; w++) {
+
+            long word = other.words[w];
+            cat.words[base+w] |= word << shift;
+            if(shift > 0 && base+w+1 < cat.words.length) {
+                cat.words[base+w+1] |= word >>> (64-shift);
+            }
+
+        }
+
+        return cat;
+
+    }
+
+    /**
+     * Returns the 64 bits starting from position from (the positions beyond
+     * the end of the vector are read as 0).
+     *
+     * @param from a position of the vector
+     * @return     bits from..from+63 of the vector, packed in a word
+     */
+    public long getWord(int from) {
+
+        return getWord(words, from);
+
+    }
+
+    /**
+     * Returns the 64 bits starting from position from of a vector packed in
+     * an array of words (see getWord(int)).
+     *
+     * @param words the packed vector
+     * @param from  a position of the vector
+     * @return      bits from..from+63 of the vector, packed in a word
+     */
+    public static long getWord(long[] words, int from) {
+
+        int w = from >>> 6;
+        int shift = from & 63;
+        if(w >= words.length) {
+            return 0L;
+        }
+
+        long word = words[w] >>> shift;
+        if(shift > 0 && w+1 < words.length) {
+            word |= words[w+1] << (64-shift);
+        }
+
+        return word;
+
+    }
+
+    /**
+     * Converts the vector (at most 64 bits) in a number, whose bit i is
+     * position i of the vector.
+     *
+     * @return the vector as a long
+     */
+    public long toLong() {
+
+        return (words.length == 0) ? 0L : words[0];
+
+    }
+
+    /**
+     * Converts the vector (at most 31 bits) in a number, as BinTools.bin2Dec.
+     *
+     * @return the vector as an int
+     */
+    public int toInt() {
+
+        return (int)toLong();
+
+    }
+
+    /**
+     * Overwrites the vector (at most 64 bits) with the length lowest bits of
+     * a number, without allocating.
+     *
+     * @param value a number, whose bit i is position i of the vector
+     */
+    public void setLong(long value) {
+
+        if(words.length > 0) {
+            words[0] = value & mask(length);
+        }
+
+    }
+
+    /**
+     * Unpacks the vector in a boolean array.
+     *
+     * @return the vector as a binary string (LSBF order)
+     */
+    public boolean[] toBool() {
+
+        return BinTools.packed2Bool(words, length);
+
+    }
+
+    //Clears the unused bits of the last word
+    private void trim() {
+
+        if((length & 63) != 0) {
+            words[words.length-1] &= mask(length & 63);
+        }
+
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+        if(this == obj) {
+            return true;
+        }
+        if(!(obj instanceof BitVector)) {
+            return false;
+        }
+
+        BitVector other = (BitVector)obj;
+
+        return (length == other.length) &&
+                Arrays.equals(words, other.words);
+
+    }
+
+    @Override
+    public int hashCode() {
+
+        return 31*Arrays.hashCode(words) + length;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return BinTools.bool2Bin(toBool());
+
+    }
+
+    //Getters
+
+    public long[] getWords() {
+        return words;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+}
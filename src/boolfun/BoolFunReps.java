@@ -77,4 +77,136 @@ public class BoolFunReps {
         
     }
     
+    /**
+     * Masks and shifts spreading the 32 lowest bits of a word to the even
+     * positions (bit i goes to bit 2i), one step per row.
+     */
+    private static final long[] SPREAD_MASKS = {
+        0x0000FFFF0000FFFFL, 0x00FF00FF00FF00FFL, 0x0F0F0F0F0F0F0F0FL,
+        0x3333333333333333L, 0x5555555555555555L
+    };
+    private static final int[] SPREAD_SHIFTS = {16, 8, 4, 2, 1};
+    
+    //Odd positions of a word
+    private static final long ODD_MASK = 0xAAAAAAAAAAAAAAAAL;
+    
+    /**
+     * Moves bit i of a 32-bit chunk to bit 2i of a word.
+     */
+    private static long spread(long chunk) {
+        
+        long x = chunk & 0xFFFFFFFFL;
+        for(int k=0; k<SPREAD_SHIFTS.length; k++) {
+            x = (x | (x << SPREAD_SHIFTS[k])) & SPREAD_MASKS[k];
+        }
+        
+        return x;
+        
+    }
+    
+    /**
+     * Moves bit 2i of a word to bit i of a 32-bit chunk (inverse of spread).
+     */
+    private static long compact(long word) {
+        
+        long x = word & SPREAD_MASKS[SPREAD_MASKS.length-1];
+        for(int k=SPREAD_SHIFTS.length-1; k>0; k--) {
+            x = (x | (x >>> SPREAD_SHIFTS[k])) & SPREAD_MASKS[k-1];
+        }
+        x = (x | (x >>> SPREAD_SHIFTS[0])) & 0xFFFFFFFFL;
+        
+        return x;
+        
+    }
+    
+    /**
+     * Given the code of a bipermutive boolean function packed in 64-bit words
+     * (LSBF order), returns its packed truth table (see decodeBipFunc). In the
+     * lower half of the truth table, the inputs 2j and 2j+1 take the values
+     * g_j and not(g_j), where g_j is the j-th bit of the code, while the upper
+     * half is the complement of the lower one. Hence each word of the lower
+     * half is obtained by spreading 32 bits of the code to the even positions,
+     * duplicating them on the odd positions and flipping the odd positions.
+     * 
+     * @param graphcode the packed code of the function (2^(nvar-2) bits).
+     * @param nvar      the number of variables of the function (at least 2).
+     * @param dest      the array where the packed truth table is stored
+     *                  (at least ceil(2^nvar/64) words).
+     * @return dest     the packed truth table of the function.
+     */
+    public static long[] decodeBipFunc(long[] graphcode, int nvar,
+            long[] dest) {
+        
+        int half = 1 << (nvar-1);
+        
+        if(half < 64) {
+            
+            //The whole truth table fits in a single word
+            long halfmask = BitVector.mask(half);
+            long low = spread(graphcode[0] & BitVector.mask(half >>> 1));
+            low = ((low | (low << 1)) ^ ODD_MASK) & halfmask;
+            dest[0] = low | ((~low & halfmask) << half);
+            
+        } else {
+            
+            int nw = half >>> 6;
+            for(int w=0; w<nw; w++) {
+                
+                long low = spread(graphcode[w >>> 1] >>> ((w & 1) << 5));
+                low = (low | (low << 1)) ^ ODD_MASK;
+                dest[w] = low;
+                dest[w+nw] = ~low;
+                
+            }
+            
+        }
+        
+        return dest;
+        
+    }
+    
+    /**
+     * Given the code of a bipermutive boolean function packed in 64-bit words,
+     * returns its packed truth table in a new array (see
+     * decodeBipFunc(long[], int, long[])).
+     * 
+     * @param graphcode the packed code of the function.
+     * @param nvar      the number of variables of the function.
+     * @return          the packed truth table of the function.
+     */
+    public static long[] decodeBipFunc(long[] graphcode, int nvar) {
+        
+        return decodeBipFunc(graphcode, nvar,
+                new long[BitVector.nwords(1 << nvar)]);
+        
+    }
+    
+    /**
+     * Given the packed truth table of a bipermutive boolean function, returns
+     * the packed binary configuration of its graph (see encodeBipFunc). The
+     * i-th bit of the configuration is the value of the function on input 2i,
+     * so the configuration is obtained by compacting the even positions of
+     * the lower half of the truth table.
+     * 
+     * @param packedtt  the packed truth table of the function.
+     * @param nvar      the number of variables of the function (at least 2).
+     * @return          the packed configuration of the graph of the function.
+     */
+    public static long[] encodeBipFunc(long[] packedtt, int nvar) {
+        
+        int half = 1 << (nvar-1);
+        long[] graphcode = new long[BitVector.nwords(half >>> 1)];
+        
+        if(half < 64) {
+            graphcode[0] = compact(packedtt[0] & BitVector.mask(half));
+        } else {
+            for(int w=0; w<(half >>> 6); w++) {
+                graphcode[w >>> 1] |= compact(packedtt[w]) << ((w & 1) << 5);
+            }
+        }
+        
+        return graphcode;
+        
+    }
+    
 }
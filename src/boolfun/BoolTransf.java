@@ -15,6 +15,13 @@ package boolfun;
  */
 public class BoolTransf {
     
+    /**
+     * Size (in number of coefficients) of the blocks of the vector which are
+     * transformed completely before moving to the next one in the fast
+     * transforms, so that the butterflies on small strides run in cache.
+     */
+    static final int FWT_BLOCK = 1 << 11;
+    
     /**
      * Computes the Walsh Transform of a boolean function using the Fast Walsh
      * Transform (FWT) algorithm, which requires O(NlogN) operations (N=2^n is
@@ -25,50 +32,237 @@ public class BoolTransf {
      * "Boolean Models and Methods in Mathematics, Computer Science and
      * Engineering", p. 272.
      * 
+     * The transform is computed iteratively: the butterflies on the strides
+     * larger than FWT_BLOCK are applied two levels at a time over the whole
+     * vector, then each block of FWT_BLOCK coefficients is transformed
+     * completely, and the spectral radius is updated in the last level of
+     * each block.
+     * 
      * @param vector an array of integers representing the boolean function.
      * @param start  the index of the truth table where to start computations.
-     * @param end    the index of the truth table where to stop computations.
+     * @param length the length of the subvector (a power of 2).
+     * @return       the spectral radius (maximum absolute value) of the
+     *               spectrum.
      */
     public static int calcFWT(int[] vector, int start, int length) {
         
-        int half = length/2;
+        int end = start+length;
+        int blk = Math.min(length, FWT_BLOCK);
         
-        //Main cycle: split vector in two parts (v0 e v1), 
-        //update v0 as v0=v0+v1, and v1 as v1=v0-v1.
-        for(int i=start; i<start+half; i++) {
-            int temp = vector[i];
-            vector[i] += vector[i+half];
-            vector[i+half] = temp - vector[i+half];
+        //Large strides: fuse the butterflies of strides h and 2h in a
+        //single pass over groups of 4 coefficients, v0..v3.
+        int h = blk;
+        while(h < length) {
+            
+            if(2*h < length) {
+                
+                for(int g=start; g<end; g+=4*h) {
+                    for(int i=g; i<g+h; i++) {
+                        int a0 = vector[i] + vector[i+h];
+                        int a1 = vector[i] - vector[i+h];
+                        int a2 = vector[i+2*h] + vector[i+3*h];
+                        int a3 = vector[i+2*h] - vector[i+3*h];
+                        vector[i] = a0 + a2;
+                        vector[i+h] = a1 + a3;
+                        vector[i+2*h] = a0 - a2;
+                        vector[i+3*h] = a1 - a3;
+                    }
+                }
+                h *= 4;
+                
+            } else {
+                
+                for(int g=start; g<end; g+=2*h) {
+                    for(int i=g; i<g+h; i++) {
+                        int temp = vector[i];
+                        vector[i] += vector[i+h];
+                        vector[i+h] = temp - vector[i+h];
+                    }
+                }
+                h *= 2;
+                
+            }
+            
         }
         
-        //Recursive call on v0 and v1.
-        if(half>1) {
+        //Small strides: transform each block completely while it is in cache.
+        int sprad = 0;
+        for(int b=start; b<end; b+=blk) {
             
-            int val1 = calcFWT(vector,start,half);
-            int val2 = calcFWT(vector,start+half,half);
+            for(h=blk/2; h>1; h/=2) {
+                for(int g=b; g<b+blk; g+=2*h) {
+                    for(int i=g; i<g+h; i++) {
+                        int temp = vector[i];
+                        vector[i] += vector[i+h];
+                        vector[i+h] = temp - vector[i+h];
+                    }
+                }
+            }
             
-            if(val1 > val2) {
-                    //System.out.println(" val1 > val2 Degree of subfunction "+start+"-"+
-                    //        (start+length-1)+": "+val1);
-                    return val1;
+            //Last level (stride 1), tracking the highest absolute value
+            if(blk == 1) {
+                sprad = Math.abs(vector[b]);
             }
-            else {
-                //System.out.println("val1 <= val 2 Degree of subfunction "+(start)+"-"+
-                //        (start+length-1)+": "+val2);
-                return val2;
+            for(int i=b; i<b+blk-1; i+=2) {
+                int v0 = vector[i] + vector[i+1];
+                int v1 = vector[i] - vector[i+1];
+                vector[i] = v0;
+                vector[i+1] = v1;
+                sprad = Math.max(sprad, Math.max(Math.abs(v0), Math.abs(v1)));
             }
-
-        } else {
+            
+        }
         
-            //If we have reached half=1 (function in 2 variables),
-            //return the highest coefficient in absolute value.
-            if(Math.abs(vector[start]) > Math.abs(vector[start+half]))
-                return Math.abs(vector[start]);
-            else
-                return Math.abs(vector[start+half]);           
+        return sprad;
+        
+    }
+    
+    /**
+     * Computes the Walsh Transform of a boolean function with 64-bit
+     * coefficients, to avoid overflows when the values in the vector are not
+     * in polar form (e.g. squared spectra) or the number of variables is large.
+     * The algorithm is the same as calcFWT(int[], int, int).
+     * 
+     * @param vector an array of longs representing the boolean function.
+     * @param start  the index of the truth table where to start computations.
+     * @param length the length of the subvector (a power of 2).
+     * @return       the spectral radius (maximum absolute value) of the
+     *               spectrum.
+     */
+    public static long calcFWT(long[] vector, int start, int length) {
+        
+        int end = start+length;
+        int blk = Math.min(length, FWT_BLOCK);
+        
+        int h = blk;
+        while(h < length) {
+            
+            if(2*h < length) {
+                
+                for(int g=start; g<end; g+=4*h) {
+                    for(int i=g; i<g+h; i++) {
+                        long a0 = vector[i] + vector[i+h];
+                        long a1 = vector[i] - vector[i+h];
+                        long a2 = vector[i+2*h] + vector[i+3*h];
+                        long a3 = vector[i+2*h] - vector[i+3*h];
+                        vector[i] = a0 + a2;
+                        vector[i+h] = a1 + a3;
+                        vector[i+2*h] = a0 - a2;
+                        vector[i+3*h] = a1 - a3;
+                    }
+                }
+                h *= 4;
+                
+            } else {
+                
+                for(int g=start; g<end; g+=2*h) {
+                    for(int i=g; i<g+h; i++) {
+                        long temp = vector[i];
+                        vector[i] += vector[i+h];
+                        vector[i+h] = temp - vector[i+h];
+                    }
+                }
+                h *= 2;
+                
+            }
+            
+        }
+        
+        long sprad = 0;
+        for(int b=start; b<end; b+=blk) {
+            
+            for(h=blk/2; h>1; h/=2) {
+                for(int g=b; g<b+blk; g+=2*h) {
+                    for(int i=g; i<g+h; i++) {
+                        long temp = vector[i];
+                        vector[i] += vector[i+h];
+                        vector[i+h] = temp - vector[i+h];
+                    }
+                }
+            }
+            
+            if(blk == 1) {
+                sprad = Math.abs(vector[b]);
+            }
+            for(int i=b; i<b+blk-1; i+=2) {
+                long v0 = vector[i] + vector[i+1];
+                long v1 = vector[i] - vector[i+1];
+                vector[i] = v0;
+                vector[i+1] = v1;
+                sprad = Math.max(sprad, Math.max(Math.abs(v0), Math.abs(v1)));
+            }
+            
+        }
+        
+        return sprad;
+        
+    }
+    
+    /**
+     * Builds the histogram of the absolute values of a Walsh spectrum, used
+     * by updateFWT to maintain the spectral radius under single-bit flips.
+     * 
+     * @param spectrum  the Walsh spectrum of a boolean function.
+     * @return hist     an array where hist[v] is the number of coefficients
+     *                  with absolute value v (0 <= v <= spectrum.length).
+     */
+    public static int[] buildAbsHist(int[] spectrum) {
+        
+        int[] hist = new int[spectrum.length+1];
+        
+        for(int i=0; i<spectrum.length; i++) {
+            hist[Math.abs(spectrum[i])]++;
+        }
+        
+        return hist;
+        
+    }
+    
+    /**
+     * Updates the Walsh spectrum of a boolean function when the value of the
+     * function on a single input x is flipped, in O(N) operations instead of
+     * the O(NlogN) of a new FWT. The polar value on x changes from p to -p,
+     * hence each coefficient changes by exactly 2: F(a) becomes
+     * F(a) - 2p(-1)^(a.x). The histogram of the absolute values is updated
+     * together with the spectrum, and since the spectral radius changes by at
+     * most 2 with each flip, the new one is found in a constant number of
+     * steps.
+     * 
+     * @param spectrum  the Walsh spectrum of the function, updated in place.
+     * @param input     the input x whose value is flipped.
+     * @param oldpolar  the polar value of the function on x before the flip.
+     * @param hist      the histogram of the absolute values of the spectrum
+     *                  (see buildAbsHist), updated in place.
+     * @param sprad     the spectral radius before the flip.
+     * @return          the spectral radius after the flip.
+     */
+    public static int updateFWT(int[] spectrum, int input, int oldpolar,
+            int[] hist, int sprad) {
+        
+        int delta = 2*oldpolar;
+        
+        for(int a=0; a<spectrum.length; a++) {
+            
+            int oldval = spectrum[a];
+            
+            //(-1)^(a.x) is given by the parity of the common bits
+            int newval = ((Integer.bitCount(a & input) & 1) == 0)
+                    ? oldval - delta : oldval + delta;
+            spectrum[a] = newval;
+            hist[Math.abs(oldval)]--;
+            hist[Math.abs(newval)]++;
             
         }
         
+        if(sprad+2 < hist.length && hist[sprad+2] > 0) {
+            return sprad+2;
+        }
+        while(sprad > 0 && hist[sprad] == 0) {
+            sprad--;
+        }
+        
+        return sprad;
+        
     }
     
     /**
@@ -159,18 +353,195 @@ public class BoolTransf {
             
             calcFWT(vector, 0, vector.length);
             
-        }        
+        }
+        
+        //The squared spectrum overflows an int beyond 15 variables: use the
+        //64-bit engine.
+        if(vector.length > (1 << 15)) {
+            
+            long[] lvector = new long[vector.length];
+            for(int i=0; i<vector.length; i++) {
+                lvector[i] = vector[i];
+            }
+            long acmax = calcACExact(lvector, true)[AC_MAX];
+            for(int i=0; i<vector.length; i++) {
+                vector[i] = (int)lvector[i];
+            }
+            
+            return (int)acmax;
+            
+        }
+        
         //Square the spectrum
         for(int i=0; i<vector.length; i++) {
             vector[i] *= vector[i];
         }
         
-        //Compute the inverse WT of the squared spectrum
-        int acmax = calcInvFWT(vector, 0, vector.length);
+        //Compute the inverse WT of the squared spectrum: the butterflies are
+        //those of the FWT, and the scaling by 1/2^n is applied once at the end
+        calcFWT(vector, 0, vector.length);
+        int shift = Integer.numberOfTrailingZeros(vector.length);
+        int acmax = 0;
+        vector[0] >>= shift;
+        for(int i=1; i<vector.length; i++) {
+            vector[i] >>= shift;
+            acmax = Math.max(acmax, Math.abs(vector[i]));
+        }
+        
         return acmax;
         
     }
     
+    /** Position of ACmax in the array returned by calcACExact. */
+    public static final int AC_MAX = 0;
+    /** Position of the sum of squares indicator in the array returned by
+     *  calcACExact. */
+    public static final int AC_SSI = 1;
+    /** Position of the number of nonzero linear structures in the array
+     *  returned by calcACExact. */
+    public static final int AC_NLSTRUCT = 2;
+    
+    /**
+     * Computes the autocorrelation function of a boolean function with 64-bit
+     * arithmetic, using the Wiener-Khintchine theorem as calcAC. The inverse
+     * transform is computed without intermediate divisions, and its scaling
+     * by 1/2^n is applied once in a final pass, which also computes the
+     * maximum absolute autocorrelation, the sum of squares indicator and the
+     * number of nonzero linear structures. The result is exact as long as the
+     * sum of squares indicator (at most 2^(3n)) fits in a long.
+     * 
+     * @param vector    an array of longs representing the polar form of the
+     *                  boolean function or its Walsh spectrum; on return, it
+     *                  holds the autocorrelation function.
+     * @param mode      a boolean flag specifying whether vector is the polar
+     *                  form of the function (false) or the Walsh spectrum
+     *                  (true).
+     * @return stats    an array with ACmax, the sum of squares indicator and
+     *                  the number of nonzero linear structures, in positions
+     *                  AC_MAX, AC_SSI and AC_NLSTRUCT.
+     */
+    public static long[] calcACExact(long[] vector, boolean mode) {
+        
+        return calcACExact(vector, mode, new long[3]);
+        
+    }
+    
+    /**
+     * Same as calcACExact(long[], boolean), storing the statistics in an
+     * array of 3 longs given by the caller.
+     */
+    public static long[] calcACExact(long[] vector, boolean mode,
+            long[] stats) {
+        
+        int length = vector.length;
+        
+        if(!mode) {
+            calcFWT(vector, 0, length);
+        }
+        
+        for(int i=0; i<length; i++) {
+            vector[i] *= vector[i];
+        }
+        
+        calcFWT(vector, 0, length);
+        
+        return scaleAC(vector, 0, length, stats);
+        
+    }
+    
+    /**
+     * Computes the autocorrelation function of a boolean function from its
+     * Walsh spectrum stored in an int array, as calcACExact. For at most 15
+     * variables the unscaled autocorrelation is bounded by the sum of the
+     * squared spectrum, 2^(2n) <= 2^30, so the whole computation is done in
+     * place in the int array, without a 64-bit copy. The statistics are
+     * stored in an array given by the caller, so that no memory is allocated.
+     * 
+     * @param vector    the Walsh spectrum of a function of at most 15
+     *                  variables; on return, it holds the autocorrelation
+     *                  function.
+     * @param stats     an array of 3 longs, where ACmax, the sum of squares
+     *                  indicator and the number of nonzero linear structures
+     *                  are stored (positions AC_MAX, AC_SSI and AC_NLSTRUCT).
+     * @return stats    the array stats.
+     */
+    public static long[] calcACExact(int[] vector, long[] stats) {
+        
+        int length = vector.length;
+        if(length > (1 << 15)) {
+            throw new IllegalArgumentException("The int autocorrelation "
+                    +"engine supports at most 15 variables");
+        }
+        
+        for(int i=0; i<length; i++) {
+            vector[i] *= vector[i];
+        }
+        
+        calcFWT(vector, 0, length);
+        
+        int shift = Integer.numberOfTrailingZeros(length);
+        int val = vector[0] >> shift;
+        vector[0] = val;
+        stats[AC_MAX] = 0;
+        stats[AC_SSI] = (long)val*val;
+        stats[AC_NLSTRUCT] = 0;
+        
+        for(int i=1; i<length; i++) {
+            
+            val = vector[i] >> shift;
+            vector[i] = val;
+            int absval = Math.abs(val);
+            stats[AC_MAX] = Math.max(stats[AC_MAX], absval);
+            stats[AC_SSI] += (long)val*val;
+            if(absval == length) {
+                stats[AC_NLSTRUCT]++;
+            }
+            
+        }
+        
+        return stats;
+        
+    }
+    
+    /**
+     * Final pass of the autocorrelation engine: divides by 2^n the unscaled
+     * autocorrelation of a function stored in a subvector, and computes its
+     * statistics (see calcACExact).
+     * 
+     * @param vector    the unscaled autocorrelation function.
+     * @param start     the index where the function begins.
+     * @param length    the length of the function (a power of 2).
+     * @param stats     the array where the statistics are stored.
+     * @return stats    ACmax, the sum of squares indicator and the number of
+     *                  nonzero linear structures.
+     */
+    static long[] scaleAC(long[] vector, int start, int length, long[] stats) {
+        
+        int shift = Integer.numberOfTrailingZeros(length);
+        
+        long val = vector[start] >> shift;
+        vector[start] = val;
+        stats[AC_MAX] = 0;
+        stats[AC_SSI] = val*val;
+        stats[AC_NLSTRUCT] = 0;
+        
+        for(int i=start+1; i<start+length; i++) {
+            
+            val = vector[i] >> shift;
+            vector[i] = val;
+            long absval = Math.abs(val);
+            stats[AC_MAX] = Math.max(stats[AC_MAX], absval);
+            stats[AC_SSI] += val*val;
+            if(absval == length) {
+                stats[AC_NLSTRUCT]++;
+            }
+            
+        }
+        
+        return stats;
+        
+    }
+    
     /**
      * Compute the sum of squares indicator (i.e., sum of the squared
      * autocorrelation spectrum).
@@ -178,15 +549,18 @@ public class BoolTransf {
      * @param vector a vector of integer representing the autocorrelation 
      *               spectrum of a boolean function
      * @return the sum of squares indicator corresponding to the autocorrelation
-     *         spectrum
+     *         spectrum, as a long (it can exceed the int range for n > 10)
      */
-    public static int calcSSI(int[] vector) {
+    public static long calcSSI(int[] vector) {
         
-        int ssi = 0;
+        //64-bit accumulator, as in calcACExact (AC_SSI): the indicator of an
+        //affine function is 2^n*(2^n)^2 = 2^(3n), which overflows an int
+        //already for n=11
+        long ssi = 0;
         
         for(int i=0; i<vector.length; i++) {
             
-            ssi += (int)(Math.pow(vector[i],2));
+            ssi += (long)vector[i]*vector[i];
             
         }
         
@@ -227,6 +601,131 @@ public class BoolTransf {
         
     }
     
+    //Cached swap tables of the bit-reverse permutation, indexed by number of
+    //variables.
+    private static final int[][] REV_SWAPS = new int[31][];
+    
+    /**
+     * Returns the table of the swaps which sort a vector of 2^nvar elements
+     * in bit-reverse order: positions 2k and 2k+1 of the table are an index i
+     * and its bit-reversal rev(i), with i < rev(i). The tables are cached and
+     * shared, and must not be modified.
+     * 
+     * @param nvar  the number of variables.
+     * @return      the swap table of the bit-reverse permutation.
+     */
+    static int[] bitReverseSwaps(int nvar) {
+        
+        synchronized(REV_SWAPS) {
+            
+            if(REV_SWAPS[nvar] == null) {
+                
+                int length = 1 << nvar;
+                int npairs = 0;
+                for(int i=0; i<length; i++) {
+                    if(i < reverseIndex(i, nvar)) {
+                        npairs++;
+                    }
+                }
+                
+                int[] swaps = new int[2*npairs];
+                int k = 0;
+                for(int i=0; i<length; i++) {
+                    int rev = reverseIndex(i, nvar);
+                    if(i < rev) {
+                        swaps[k++] = i;
+                        swaps[k++] = rev;
+                    }
+                }
+                REV_SWAPS[nvar] = swaps;
+                
+            }
+            
+            return REV_SWAPS[nvar];
+            
+        }
+        
+    }
+    
+    /**
+     * Reverses the order of the nvar lowest bits of an index.
+     * 
+     * @param index an index in 0..2^nvar-1.
+     * @param nvar  the number of bits of the index.
+     * @return      the bit-reversal of index.
+     */
+    static int reverseIndex(int index, int nvar) {
+        
+        return (nvar == 0) ? 0 : Integer.reverse(index) >>> (32-nvar);
+        
+    }
+    
+    /**
+     * Computes the Haar Transform of a boolean function given in natural
+     * (not bit-reversed) order. The vector is first sorted in bit-reverse
+     * order with the cached swap table, then the Fast Haar Transform is
+     * computed iteratively as in calcFHT, in the original vector.
+     * 
+     * @param vector an array of integers representing the boolean function.
+     */
+    public static void calcHaar(int[] vector) {
+        
+        int[] swaps = bitReverseSwaps(Integer.numberOfTrailingZeros(
+                vector.length));
+        for(int k=0; k<swaps.length; k+=2) {
+            int temp = vector[swaps[k]];
+            vector[swaps[k]] = vector[swaps[k+1]];
+            vector[swaps[k+1]] = temp;
+        }
+        
+        calcFHTIter(vector);
+        
+    }
+    
+    /**
+     * Computes the Haar Transform of the polar form of a boolean function
+     * whose truth table is packed in 64-bit words (LSBF order). The polar
+     * values are written directly in bit-reverse order, so no separate
+     * permutation pass is needed.
+     * 
+     * @param packedtt  the packed truth table of the function.
+     * @param nvar      the number of variables of the function.
+     * @return          the Haar spectrum of the polar form of the function.
+     */
+    public static int[] calcHaar(long[] packedtt, int nvar) {
+        
+        int length = 1 << nvar;
+        int[] vector = new int[length];
+        
+        for(int i=0; i<length; i++) {
+            boolean val = ((packedtt[i >>> 6] >>> i) & 1L) != 0;
+            vector[reverseIndex(i, nvar)] = val ? -1 : 1;
+        }
+        
+        calcFHTIter(vector);
+        
+        return vector;
+        
+    }
+    
+    /**
+     * Iterative version of calcFHT(vector, vector.length): the butterflies
+     * are applied on the prefixes of length 2^n, 2^(n-1), ..., 2.
+     * 
+     * @param vector an array of integers sorted in bit-reverse order.
+     */
+    static void calcFHTIter(int[] vector) {
+        
+        for(int half=vector.length/2; half>=1; half/=2) {
+            for(int i=0; i<half; i++) {
+                int temp = vector[i];
+                vector[i] += vector[i+half];
+                vector[i+half] = temp - vector[i+half];
+            }
+        }
+        
+    }
+    
     /**
      * Find the highest coefficient (in absolute value) in a vector. The method
      * can be used to determine the spectral radius of a boolean function
@@ -297,7 +796,67 @@ public class BoolTransf {
      */
     public static int[] calcDevs(int[] coeffs, int[][] indices) {
         
-        int[] devs = new int[indices.length];
+        return calcDevs(coeffs, indices, new int[indices.length]);
+        
+    }
+    
+    /**
+     * Same as calcDevs(int[], int[][]), but without a table of indices: the
+     * deviations are computed in a single pass over coeffs, using the
+     * population count of each position to find its Hamming weight.
+     * 
+     * @param coeffs    an array of coefficients (it can be the Walsh spectrum
+     *                  or the autocorrelation function of a boolean function).
+     * @param nvar      the number of variables of the function.
+     * @param devs      the array where the deviations of orders 1 to nvar
+     *                  are stored.
+     * @return devs     the array devs.
+     */
+    public static int[] calcDevs(int[] coeffs, int nvar, int[] devs) {
+        
+        for(int i=0; i<nvar; i++) {
+            devs[i] = 0;
+        }
+        
+        for(int x=1; x<coeffs.length; x++) {
+            
+            int w = Integer.bitCount(x)-1;
+            int absval = Math.abs(coeffs[x]);
+            if(absval > devs[w]) {
+                devs[w] = absval;
+            }
+            
+        }
+        
+        //Deviations of order i must take into account also deviations
+        //of lower orders.
+        for(int i=1; i<nvar; i++) {
+            
+            if(devs[i-1] > devs[i]) {
+                devs[i] = devs[i-1];
+            }
+            
+        }
+        
+        return devs;
+        
+    }
+    
+    /**
+     * Same as calcDevs(int[], int[][]), but stores the deviations in the
+     * first indices.length positions of an array given by the caller.
+     * 
+     * @param coeffs    an array of coefficients.
+     * @param indices   an array containing arrays of indices with a specified
+     *                  Hamming weight.
+     * @param devs      the array where the deviations are stored.
+     * @return devs     the array devs.
+     */
+    public static int[] calcDevs(int[] coeffs, int[][] indices, int[] devs) {
+        
+        for(int i=0; i<indices.length; i++) {
+            devs[i] = 0;
+        }
         
         //Cycle through Hamming weights from 1 to indices.length
         //(the vector indices *must* be initialised from weight 1, not 0!)
@@ -366,16 +925,27 @@ public class BoolTransf {
      */
     public static boolean[] checkPerm(int[] vector, int nvar) {
         
-        boolean[] permvect = new boolean[nvar];
+        return checkPerm(vector, nvar, new boolean[nvar]);
+        
+    }
+    
+    /**
+     * Same as checkPerm(int[], int), but stores the result in an array given
+     * by the caller.
+     * 
+     * @param vector     the autocorrelation function of a boolean function
+     * @param nvar       the number of variables of the function.
+     * @param permvect   the array where the result is stored.
+     * @return permvect  the array permvect.
+     */
+    public static boolean[] checkPerm(int[] vector, int nvar,
+            boolean[] permvect) {
         
-        for(int i=0; i<permvect.length; i++) {
+        for(int i=0; i<nvar; i++) {
             
             //The input of Hamming weight 1 are those having as
             //decimal representation a power of 2.
-            int index = (int)Math.pow(2,i);
-            if(vector[index] == -vector.length) {
-                permvect[i] = true;
-            }
+            permvect[i] = (vector[1 << i] == -vector.length);
             
         }
         
@@ -439,15 +1009,11 @@ public class BoolTransf {
                 return 0;
             } else {
 
-                //Compute the length of the input vectors.
-                int inplen = (int)(Math.log(vector.length)/Math.log(2));
-
                 //If the coefficient of the higher vector is null,
                 //then return the Hamming weight of the lower vector.
                 if(vector[start+half] == false) {
 
-                    boolean[] input = BinTools.dec2BinMod(start, inplen);
-                    int subdeg = BinTools.hwt(input);
+                    int subdeg = Integer.bitCount(start);
                     //System.out.println("Degree of subfunction "+start+"-"+
                     //    (start+half)+": "+subdeg);
                     return subdeg;
@@ -456,8 +1022,7 @@ public class BoolTransf {
 
                     //In all other cases, return the Hamming weight of the
                     //higher vector.
-                    boolean[] input = BinTools.dec2BinMod(start+half, inplen);
-                    int subdeg = BinTools.hwt(input);
+                    int subdeg = Integer.bitCount(start+half);
                     //System.out.println("Degree of subfunction "+start+"-"+
                     //    (start+half)+": "+subdeg);
                     return subdeg;
@@ -469,6 +1034,157 @@ public class BoolTransf {
         
     }
     
+    /**
+     * Masks selecting, within a 64-bit word of a packed truth table, the
+     * positions whose index has the i-th bit set (i=0..5).
+     */
+    private static final long[] FMT_MASKS = {
+        0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL, 0xF0F0F0F0F0F0F0F0L,
+        0xFF00FF00FF00FF00L, 0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L
+    };
+    
+    /**
+     * Masks selecting, within a 64-bit word of a packed truth table, the
+     * positions whose index has Hamming weight w (w=0..6).
+     */
+    private static final long[] WEIGHT_MASKS = new long[7];
+    
+    static {
+        for(int i=0; i<64; i++) {
+            WEIGHT_MASKS[Integer.bitCount(i)] |= 1L << i;
+        }
+    }
+    
+    /**
+     * Computes the Moebius Transform of a boolean function whose truth table
+     * is packed in 64-bit words (LSBF order, see BinTools.bool2Packed). The
+     * butterflies of the 6 lowest variables are computed inside each word
+     * with shift/mask operations, those of the remaining variables by XORing
+     * whole words. The ANF coefficients are computed in the original vector.
+     * 
+     * @param vector the packed truth table of the function.
+     * @param nvar   the number of variables of the function.
+     * @return       the algebraic degree of the function.
+     */
+    public static int calcFMT(long[] vector, int nvar) {
+        
+        return calcFMT(vector, 0, vector.length, nvar);
+        
+    }
+    
+    /**
+     * Computes the packed Moebius Transform on a subvector of words, as the
+     * recursive calcFMT(boolean[], int, int) does on a subvector of the truth
+     * table. Used by the parallel transforms in BoolTransfParallel.
+     * 
+     * @param vector the packed truth table of the function.
+     * @param start  the index of the first word of the subvector.
+     * @param length the number of words of the subvector (a power of 2).
+     * @param nvar   the number of variables of the function.
+     * @return       the highest Hamming weight of an input with nonzero
+     *               coefficient in the subvector.
+     */
+    static int calcFMT(long[] vector, int start, int length, int nvar) {
+        
+        int end = start+length;
+        
+        //In-word stages: v1 = v0 XOR v1 on strides 1, 2, 4, ..., 32
+        int instages = Math.min(nvar, 6);
+        for(int w=start; w<end; w++) {
+            
+            long v = vector[w];
+            for(int s=0; s<instages; s++) {
+                v ^= (v << (1 << s)) & FMT_MASKS[s];
+            }
+            vector[w] = v;
+            
+        }
+        
+        //Word-level stages on strides of 1, 2, 4, ... words
+        for(int h=1; h<length; h*=2) {
+            for(int g=start; g<end; g+=2*h) {
+                for(int w=g; w<g+h; w++) {
+                    vector[w+h] ^= vector[w];
+                }
+            }
+        }
+        
+        return calcAlgDeg(vector, start, length);
+        
+    }
+    
+    /**
+     * Computes the algebraic degree of a boolean function, given its Moebius
+     * Transform packed in 64-bit words. The Hamming weight of the index of a
+     * coefficient is the weight of its word index plus the weight of its
+     * position in the word, so the degree is found by masking each nonzero
+     * word with the positions of a given weight.
+     * 
+     * @param fmt   the packed Moebius Transform of the function.
+     * @return      the algebraic degree of the boolean function.
+     */
+    public static int calcAlgDeg(long[] fmt) {
+        
+        return calcAlgDeg(fmt, 0, fmt.length);
+        
+    }
+    
+    /**
+     * Computes the highest Hamming weight of an input with nonzero coefficient
+     * in a subvector of words of a packed Moebius Transform.
+     * 
+     * @param fmt    the packed Moebius Transform of the function.
+     * @param start  the index of the first word of the subvector.
+     * @param length the number of words of the subvector.
+     * @return       the highest weight of a nonzero coefficient.
+     */
+    static int calcAlgDeg(long[] fmt, int start, int length) {
+        
+        int algdeg = 0;
+        
+        for(int w=start; w<start+length; w++) {
+            
+            if(fmt[w] != 0) {
+                
+                int k = 6;
+                while((fmt[w] & WEIGHT_MASKS[k]) == 0) {
+                    k--;
+                }
+                algdeg = Math.max(algdeg, Integer.bitCount(w) + k);
+                
+            }
+            
+        }
+        
+        return algdeg;
+        
+    }
+    
+    /**
+     * Computes the algebraic degree of a boolean function, given its Moebius
+     * Transform, without a table of indices: the degree is the highest
+     * population count of a position with nonzero coefficient.
+     * 
+     * @param fmt       Boolean vector containing the Moebius Transform of the
+     *                  function.
+     * @return          The algebraic degree of the boolean function.
+     */
+    public static int calcAlgDeg(boolean[] fmt) {
+        
+        int algdeg = 0;
+        
+        for(int x=1; x<fmt.length; x++) {
+            
+            if(fmt[x]) {
+                algdeg = Math.max(algdeg, Integer.bitCount(x));
+            }
+            
+        }
+        
+        return algdeg;
+        
+    }
+    
     /**
      * Computes the algebraic degree of a boolean function, given its Moebius
      * Transform.
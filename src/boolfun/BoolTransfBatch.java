@@ -0,0 +1,390 @@
+package boolfun;
+
+/*
+ * Batch versions of the transforms in BoolTransf, which process many boolean
+ * functions of the same number of variables at once. The functions are stored
+ * in a structure-of-arrays layout: the coefficients of all functions for the
+ * same input are contiguous, so that each butterfly is applied to the whole
+ * batch in the innermost loop, which the JIT can vectorize.
+ */
+
+
+/**
+ *
+ * @author Luca Mariot
+ * @version 1.0
+ */
+public class BoolTransfBatch {
+
+    /**
+     * Builds the batch of the polar forms of a set of boolean functions. The
+     * value of the f-th function on input x is stored in position
+     * x*nfun + f.
+     *
+     * @param ttables   the truth tables of the functions (LSBF order), all of
+     *                  the same length.
+     * @return          the polar forms of the functions in batch layout.
+     */
+    public static int[] polarBatch(boolean[][] ttables) {
+
+        int nfun = ttables.length;
+        int length = ttables[0].length;
+        int[] batch = new int[length*nfun];
+
+        for(int f=0; f<nfun; f++) {
+            for(int x=0; x<length; x++) {
+                batch[x*nfun + f] = ttables[f][x] ? -1 : 1;
+            }
+        }
+
+        return batch;
+
+    }
+
+    /**
+     * Builds the bit-sliced batch of the truth tables of a set of boolean
+     * functions: the value of the f-th function on input x is stored in bit
+     * (f mod 64) of the word x*nwords + f/64, where nwords = ceil(nfun/64).
+     *
+     * @param ttables   the truth tables of the functions (LSBF order), all of
+     *                  the same length.
+     * @return          the truth tables of the functions in bit-sliced layout.
+     */
+    public static long[] sliceBatch(boolean[][] ttables) {
+
+        int nfun = ttables.length;
+        int nwords = (nfun+63) >>> 6;
+        int length = ttables[0].length;
+        long[] batch = new long[length*nwords];
+
+        for(int f=0; f<nfun; f++) {
+            for(int x=0; x<length; x++) {
+                if(ttables[f][x]) {
+                    batch[x*nwords + (f >>> 6)] |= 1L << f;
+                }
+            }
+        }
+
+        return batch;
+
+    }
+
+    /**
+     * Extracts the coefficients of a single function from a batch.
+     *
+     * @param batch     the coefficients of the functions in batch layout.
+     * @param nfun      the number of functions in the batch.
+     * @param f         the index of the function to extract.
+     * @return          the coefficients of the f-th function.
+     */
+    public static int[] getFunction(int[] batch, int nfun, int f) {
+
+        int[] coeffs = new int[batch.length/nfun];
+
+        for(int x=0; x<coeffs.length; x++) {
+            coeffs[x] = batch[x*nfun + f];
+        }
+
+        return coeffs;
+
+    }
+
+    /**
+     * Extracts the coefficients of a single function from a bit-sliced batch.
+     *
+     * @param batch     the coefficients of the functions in bit-sliced layout.
+     * @param nfun      the number of functions in the batch.
+     * @param f         the index of the function to extract.
+     * @return          the coefficients of the f-th function.
+     */
+    public static boolean[] getFunction(long[] batch, int nfun, int f) {
+
+        int nwords = (nfun+63) >>> 6;
+        boolean[] coeffs = new boolean[batch.length/nwords];
+
+        for(int x=0; x<coeffs.length; x++) {
+            coeffs[x] = ((batch[x*nwords + (f >>> 6)] >>> f) & 1L) != 0;
+        }
+
+        return coeffs;
+
+    }
+
+    /**
+     * Computes the Walsh Transform of a batch of boolean functions in polar
+     * form with the FWT algorithm (see BoolTransf.calcFWT). The spectra are
+     * computed in the original batch.
+     *
+     * @param batch     the polar forms of the functions in batch layout.
+     * @param nfun      the number of functions in the batch.
+     * @return sprad    the spectral radius of each function.
+     */
+    public static int[] calcFWTBatch(int[] batch, int nfun) {
+
+        int length = batch.length/nfun;
+
+        for(int h=1; h<length; h*=2) {
+            for(int g=0; g<length; g+=2*h) {
+                for(int x=g; x<g+h; x++) {
+
+                    //Butterfly on inputs x and x+h for all functions
+                    int p0 = x*nfun;
+                    int p1 = (x+h)*nfun;
+                    for(int f=0; f<nfun; f++) {
+                        int temp = batch[p0+f];
+                        batch[p0+f] = temp + batch[p1+f];
+                        batch[p1+f] = temp - batch[p1+f];
+                    }
+
+                }
+            }
+        }
+
+        int[] sprad = new int[nfun];
+        for(int x=0; x<length; x++) {
+            for(int f=0; f<nfun; f++) {
+                sprad[f] = Math.max(sprad[f], Math.abs(batch[x*nfun + f]));
+            }
+        }
+
+        return sprad;
+
+    }
+
+    /**
+     * Computes the Moebius Transform of a bit-sliced batch of boolean
+     * functions (see sliceBatch), which gives their ANF coefficients in the
+     * same layout. Each butterfly is a XOR of whole words, so 64 functions are
+     * processed by each operation.
+     *
+     * @param batch     the truth tables of the functions in bit-sliced layout.
+     * @param nfun      the number of functions in the batch.
+     */
+    public static void calcFMTBatch(long[] batch, int nfun) {
+
+        int nwords = (nfun+63) >>> 6;
+        int length = batch.length/nwords;
+
+        for(int h=1; h<length; h*=2) {
+            for(int g=0; g<length; g+=2*h) {
+                for(int x=g; x<g+h; x++) {
+
+                    int p0 = x*nwords;
+                    int p1 = (x+h)*nwords;
+                    for(int k=0; k<nwords; k++) {
+                        batch[p1+k] ^= batch[p0+k];
+                    }
+
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Computes the algebraic degree of a batch of boolean functions, given
+     * their bit-sliced Moebius Transforms.
+     *
+     * @param batch     the ANF coefficients of the functions in bit-sliced
+     *                  layout.
+     * @param nfun      the number of functions in the batch.
+     * @return algdeg   the algebraic degree of each function.
+     */
+    public static int[] calcAlgDegBatch(long[] batch, int nfun) {
+
+        int nwords = (nfun+63) >>> 6;
+        int length = batch.length/nwords;
+        int[] algdeg = new int[nfun];
+
+        for(int x=0; x<length; x++) {
+
+            int wt = Integer.bitCount(x);
+            for(int k=0; k<nwords; k++) {
+
+                //Update only the functions with a nonzero coefficient in x
+                long nz = batch[x*nwords + k];
+                while(nz != 0) {
+                    int f = (k << 6) + Long.numberOfTrailingZeros(nz);
+                    algdeg[f] = Math.max(algdeg[f], wt);
+                    nz &= nz-1;
+                }
+
+            }
+
+        }
+
+        return algdeg;
+
+    }
+
+    /**
+     * Computes the autocorrelation functions of a batch of boolean functions,
+     * given their Walsh spectra (see calcFWTBatch), using the Wiener-Khintchine
+     * theorem as in BoolTransf.calcAC. The scaling of the inverse transform is
+     * applied once at the end, so the result is exact as long as the squared
+     * spectra fit in an int (functions of up to 15 variables).
+     *
+     * @param batch     the Walsh spectra of the functions in batch layout.
+     * @param nfun      the number of functions in the batch.
+     * @return acmax    the maximum absolute autocorrelation of each function,
+     *                  computed over the nonzero inputs.
+     */
+    public static int[] calcACBatch(int[] batch, int nfun) {
+
+        int length = batch.length/nfun;
+
+        //Square the spectra
+        for(int i=0; i<batch.length; i++) {
+            batch[i] *= batch[i];
+        }
+
+        //Unnormalized inverse transform (same butterflies as the FWT)
+        calcFWTBatch(batch, nfun);
+
+        int shift = Integer.numberOfTrailingZeros(length);
+        int[] acmax = new int[nfun];
+        for(int x=0; x<length; x++) {
+            for(int f=0; f<nfun; f++) {
+                int val = batch[x*nfun + f] >> shift;
+                batch[x*nfun + f] = val;
+                if(x > 0) {
+                    acmax[f] = Math.max(acmax[f], Math.abs(val));
+                }
+            }
+        }
+
+        return acmax;
+
+    }
+
+    /**
+     * Computes the Walsh Transform of a batch of boolean functions with 64-bit
+     * coefficients (see calcFWTBatch(int[], int)).
+     *
+     * @param batch     the polar forms of the functions in batch layout.
+     * @param nfun      the number of functions in the batch.
+     * @return sprad    the spectral radius of each function.
+     */
+    public static long[] calcFWTBatch(long[] batch, int nfun) {
+
+        int length = batch.length/nfun;
+
+        for(int h=1; h<length; h*=2) {
+            for(int g=0; g<length; g+=2*h) {
+                for(int x=g; x<g+h; x++) {
+
+                    int p0 = x*nfun;
+                    int p1 = (x+h)*nfun;
+                    for(int f=0; f<nfun; f++) {
+                        long temp = batch[p0+f];
+                        batch[p0+f] = temp + batch[p1+f];
+                        batch[p1+f] = temp - batch[p1+f];
+                    }
+
+                }
+            }
+        }
+
+        long[] sprad = new long[nfun];
+        for(int x=0; x<length; x++) {
+            for(int f=0; f<nfun; f++) {
+                sprad[f] = Math.max(sprad[f], Math.abs(batch[x*nfun + f]));
+            }
+        }
+
+        return sprad;
+
+    }
+
+    /**
+     * Computes the autocorrelation functions of a batch of boolean functions
+     * with 64-bit arithmetic, given their Walsh spectra (see
+     * BoolTransf.calcACExact). The scaling of the inverse transform is applied
+     * once in the final pass, which also computes the statistics of each
+     * function.
+     *
+     * @param batch     the Walsh spectra of the functions in batch layout;
+     *                  on return, their autocorrelation functions.
+     * @param nfun      the number of functions in the batch.
+     * @return stats    for each function, ACmax, the sum of squares indicator
+     *                  and the number of nonzero linear structures, in the
+     *                  positions BoolTransf.AC_MAX, AC_SSI and AC_NLSTRUCT.
+     */
+    public static long[][] calcACExactBatch(long[] batch, int nfun) {
+
+        int length = batch.length/nfun;
+
+        for(int i=0; i<batch.length; i++) {
+            batch[i] *= batch[i];
+        }
+
+        calcFWTBatch(batch, nfun);
+
+        int shift = Integer.numberOfTrailingZeros(length);
+        long[][] stats = new long[nfun][3];
+        for(int x=0; x<length; x++) {
+            for(int f=0; f<nfun; f++) {
+
+                long val = batch[x*nfun + f] >> shift;
+                batch[x*nfun + f] = val;
+                stats[f][BoolTransf.AC_SSI] += val*val;
+                if(x > 0) {
+                    long absval = Math.abs(val);
+                    stats[f][BoolTransf.AC_MAX] = Math.max(
+                            stats[f][BoolTransf.AC_MAX], absval);
+                    if(absval == length) {
+                        stats[f][BoolTransf.AC_NLSTRUCT]++;
+                    }
+                }
+
+            }
+        }
+
+        return stats;
+
+    }
+
+    /**
+     * Computes the Haar Transform of a batch of boolean functions given in
+     * natural order (see BoolTransf.calcHaar). The inputs of the batch are
+     * sorted in bit-reverse order by swapping whole rows of nfun coefficients,
+     * then the butterflies are applied to all functions at once.
+     *
+     * @param batch     the functions in batch layout.
+     * @param nfun      the number of functions in the batch.
+     */
+    public static void calcHaarBatch(int[] batch, int nfun) {
+
+        int length = batch.length/nfun;
+        int[] swaps = BoolTransf.bitReverseSwaps(
+                Integer.numberOfTrailingZeros(length));
+
+        for(int k=0; k<swaps.length; k+=2) {
+
+            int p0 = swaps[k]*nfun;
+            int p1 = swaps[k+1]*nfun;
+            for(int f=0; f<nfun; f++) {
+                int temp = batch[p0+f];
+                batch[p0+f] = batch[p1+f];
+                batch[p1+f] = temp;
+            }
+
+        }
+
+        for(int half=length/2; half>=1; half/=2) {
+            for(int x=0; x<half; x++) {
+
+                int p0 = x*nfun;
+                int p1 = (x+half)*nfun;
+                for(int f=0; f<nfun; f++) {
+                    int temp = batch[p0+f];
+                    batch[p0+f] = temp + batch[p1+f];
+                    batch[p1+f] = temp - batch[p1+f];
+                }
+
+            }
+        }
+
+    }
+
+}
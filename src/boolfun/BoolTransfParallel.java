@@ -0,0 +1,332 @@
+package boolfun;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Parallel versions of the fast transforms in BoolTransf, for boolean
+ * functions with a large number of variables (20 or more). The top levels of
+ * butterflies are split across the tasks of a ForkJoinPool, following the same
+ * recursion as the sequential methods, and each subvector of at most
+ * LEAF_LENGTH coefficients is then transformed by the sequential method in a
+ * single task. The results (including the returned values) are identical to
+ * those of the sequential methods.
+ */
+
+
+/**
+ *
+ * @author Luca Mariot
+ * @version 1.0
+ */
+public class BoolTransfParallel {
+
+    /**
+     * Length of the subvectors which are transformed sequentially by a single
+     * task.
+     */
+    static final int LEAF_LENGTH = 1 << 15;
+
+    /**
+     * Computes the Walsh Transform of a boolean function in parallel (see
+     * BoolTransf.calcFWT), using the common ForkJoinPool.
+     *
+     * @param vector an array of integers representing the boolean function.
+     * @return       the spectral radius of the function.
+     */
+    public static int calcFWT(int[] vector) {
+
+        return calcFWT(vector, ForkJoinPool.commonPool());
+
+    }
+
+    /**
+     * Computes the Walsh Transform of a boolean function in parallel (see
+     * BoolTransf.calcFWT).
+     *
+     * @param vector an array of integers representing the boolean function.
+     * @param pool   the pool which executes the tasks.
+     * @return       the spectral radius of the function.
+     */
+    public static int calcFWT(int[] vector, ForkJoinPool pool) {
+
+        return (int)(long)pool.invoke(new FWTTask(vector, 0, vector.length));
+
+    }
+
+    /**
+     * Computes the Walsh Transform of a boolean function in parallel with
+     * 64-bit coefficients (see BoolTransf.calcFWT(long[], int, int)).
+     *
+     * @param vector an array of longs representing the boolean function.
+     * @param pool   the pool which executes the tasks.
+     * @return       the spectral radius of the function.
+     */
+    public static long calcFWT(long[] vector, ForkJoinPool pool) {
+
+        return pool.invoke(new LongFWTTask(vector, 0, vector.length));
+
+    }
+
+    /**
+     * Computes the inverse Walsh Transform in parallel (see
+     * BoolTransf.calcInvFWT). The levels are processed in the same order as
+     * the sequential method, so that the truncations of the divisions by 2
+     * give the same result.
+     *
+     * @param vector an array of integers representing the spectrum of a
+     *               boolean function.
+     * @param pool   the pool which executes the tasks.
+     * @return       the same value returned by BoolTransf.calcInvFWT.
+     */
+    public static int calcInvFWT(int[] vector, ForkJoinPool pool) {
+
+        return (int)(long)pool.invoke(new InvFWTTask(vector, 0,
+                vector.length));
+
+    }
+
+    /**
+     * Computes the Moebius Transform of a packed truth table in parallel (see
+     * BoolTransf.calcFMT(long[], int)).
+     *
+     * @param vector the packed truth table of the function.
+     * @param nvar   the number of variables of the function.
+     * @param pool   the pool which executes the tasks.
+     * @return       the algebraic degree of the function.
+     */
+    public static int calcFMT(long[] vector, int nvar, ForkJoinPool pool) {
+
+        return (int)(long)pool.invoke(new FMTTask(vector, 0, vector.length,
+                nvar));
+
+    }
+
+    /**
+     * Skeleton of the parallel transforms: the butterflies on the two halves
+     * of the subvector are applied in parallel chunks, then the two halves
+     * are transformed by two subtasks, down to subvectors of LEAF_LENGTH
+     * elements. The value of a task is the maximum of the values of its
+     * leaves.
+     */
+    private static abstract class TransfTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        final int start;
+        final int length;
+
+        TransfTask(int start, int length) {
+            this.start = start;
+            this.length = length;
+        }
+
+        /**
+         * Applies the butterflies between positions i and i+half, for i
+         * ranging from from (included) to to (excluded).
+         */
+        abstract void butterflies(int from, int to, int half);
+
+        /**
+         * Transforms sequentially the subvector.
+         */
+        abstract long leaf(int start, int length);
+
+        abstract TransfTask subtask(int start, int length);
+
+        int leafLength() {
+            return LEAF_LENGTH;
+        }
+
+        @Override
+        protected Long compute() {
+
+            if(length <= leafLength()) {
+                return leaf(start, length);
+            }
+
+            int half = length/2;
+            new ButterflyAction(this, start, start+half, half).invoke();
+
+            TransfTask task0 = subtask(start, half);
+            TransfTask task1 = subtask(start+half, half);
+            task0.fork();
+            long val1 = task1.compute();
+            long val0 = task0.join();
+
+            return Math.max(val0, val1);
+
+        }
+
+    }
+
+    /**
+     * Splits the butterflies of one level in chunks of LEAF_LENGTH pairs.
+     */
+    private static class ButterflyAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        final TransfTask task;
+        final int from;
+        final int to;
+        final int half;
+
+        ButterflyAction(TransfTask task, int from, int to, int half) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.half = half;
+        }
+
+        @Override
+        protected void compute() {
+
+            if(to-from <= task.leafLength()) {
+                task.butterflies(from, to, half);
+            } else {
+                int mid = (from+to) >>> 1;
+                invokeAll(new ButterflyAction(task, from, mid, half),
+                        new ButterflyAction(task, mid, to, half));
+            }
+
+        }
+
+    }
+
+    private static class FWTTask extends TransfTask {
+
+        private static final long serialVersionUID = 1L;
+
+        final int[] vector;
+
+        FWTTask(int[] vector, int start, int length) {
+            super(start, length);
+            this.vector = vector;
+        }
+
+        @Override
+        void butterflies(int from, int to, int half) {
+            for(int i=from; i<to; i++) {
+                int temp = vector[i];
+                vector[i] += vector[i+half];
+                vector[i+half] = temp - vector[i+half];
+            }
+        }
+
+        @Override
+        long leaf(int start, int length) {
+            return BoolTransf.calcFWT(vector, start, length);
+        }
+
+        @Override
+        TransfTask subtask(int start, int length) {
+            return new FWTTask(vector, start, length);
+        }
+
+    }
+
+    private static class LongFWTTask extends TransfTask {
+
+        private static final long serialVersionUID = 1L;
+
+        final long[] vector;
+
+        LongFWTTask(long[] vector, int start, int length) {
+            super(start, length);
+            this.vector = vector;
+        }
+
+        @Override
+        void butterflies(int from, int to, int half) {
+            for(int i=from; i<to; i++) {
+                long temp = vector[i];
+                vector[i] += vector[i+half];
+                vector[i+half] = temp - vector[i+half];
+            }
+        }
+
+        @Override
+        long leaf(int start, int length) {
+            return BoolTransf.calcFWT(vector, start, length);
+        }
+
+        @Override
+        TransfTask subtask(int start, int length) {
+            return new LongFWTTask(vector, start, length);
+        }
+
+    }
+
+    private static class InvFWTTask extends TransfTask {
+
+        private static final long serialVersionUID = 1L;
+
+        final int[] vector;
+
+        InvFWTTask(int[] vector, int start, int length) {
+            super(start, length);
+            this.vector = vector;
+        }
+
+        @Override
+        void butterflies(int from, int to, int half) {
+            for(int i=from; i<to; i++) {
+                int temp = vector[i];
+                vector[i] = (vector[i] + vector[i+half]) / 2;
+                vector[i+half] = (temp - vector[i+half]) / 2;
+            }
+        }
+
+        @Override
+        long leaf(int start, int length) {
+            return BoolTransf.calcInvFWT(vector, start, length);
+        }
+
+        @Override
+        TransfTask subtask(int start, int length) {
+            return new InvFWTTask(vector, start, length);
+        }
+
+    }
+
+    private static class FMTTask extends TransfTask {
+
+        private static final long serialVersionUID = 1L;
+
+        final long[] vector;
+        final int nvar;
+
+        FMTTask(long[] vector, int start, int length, int nvar) {
+            super(start, length);
+            this.vector = vector;
+            this.nvar = nvar;
+        }
+
+        //Each word holds 64 coefficients
+        @Override
+        int leafLength() {
+            return LEAF_LENGTH >>> 6;
+        }
+
+        @Override
+        void butterflies(int from, int to, int half) {
+            for(int w=from; w<to; w++) {
+                vector[w+half] ^= vector[w];
+            }
+        }
+
+        @Override
+        long leaf(int start, int length) {
+            return BoolTransf.calcFMT(vector, start, length, nvar);
+        }
+
+        @Override
+        TransfTask subtask(int start, int length) {
+            return new FMTTask(vector, start, length, nvar);
+        }
+
+    }
+
+}
@@ -31,6 +31,7 @@ public class BooleanFunction {
     private int nvar;
     private int ninputs;
     private boolean[] ttable;
+    private long[] packedtt;    //truth table in compact mode, null otherwise
     private boolean[] anfcoeffs;
     private String anfexpr;
     
@@ -41,7 +42,7 @@ public class BooleanFunction {
     private int nlin;
     private int[] accoeffs;
     private int acmax;
-    private int ssi; //Sum of square indicator
+    private long ssi; //Sum of square indicator
     
     //Crypto-related attributes.
     private boolean isBalanced;
@@ -53,6 +54,16 @@ public class BooleanFunction {
     //Chaos-related attributes.
     private boolean[] iperm;
     
+    //Properties (CheckProp.PROP_* flags) whose attributes are up to date.
+    private int valid;
+    
+    //Properties whose arrays have been handed out by a getter or given by a
+    //setter: CheckProp allocates new arrays for them instead of overwriting.
+    private int shared;
+    
+    //Histogram of the absolute Walsh coefficients, maintained by flipBit.
+    private int[] abshist;
+    
     /** 
      * First constructor, decimal representation-based.
      * 
@@ -67,13 +78,6 @@ public class BooleanFunction {
         ninputs = (int)Math.pow(2,nvar);
         ttable = BinTools.dec2Bin(deccode, ninputs);
         
-        whcoeffs = new int[ninputs];
-        accoeffs = new int[ninputs];
-        anfcoeffs = new boolean[ninputs];
-        cid = new int[nvar];
-        pcd = new int[nvar];
-        iperm = new boolean[nvar];
-        
     }
     
     /** 
@@ -88,32 +92,279 @@ public class BooleanFunction {
         this.nvar = nvar;
         
         ninputs = ttable.length;
-        deccode = BinTools.bin2DecBig(ttable);
         
-        whcoeffs = new int[ninputs];
-        accoeffs = new int[ninputs];
-        anfcoeffs = new boolean[ninputs];
-        cid = new int[nvar];
-        pcd = new int[nvar];
-        iperm = new boolean[nvar];
+    }
+    
+    /** 
+     * Third constructor, packed truth table-based. The function is created in
+     * compact mode: only the packed truth table is stored, while the boolean
+     * truth table, the polar form and the decimal code are derived on demand
+     * (and not kept) by their getters.
+     * 
+     * @param packedtt  truth table of the function packed in 64-bit words
+     *                  (LSBF order, see BinTools.bool2Packed).
+     * @param nvar      number of variables of the function.
+     */
+    public BooleanFunction(long[] packedtt, int nvar) {
+        
+        this.packedtt = packedtt;
+        this.nvar = nvar;
+        
+        ninputs = 1 << nvar;
+        
+    }
+    
+    /**
+     * Switches the function to compact mode, replacing the boolean truth
+     * table, the polar form and the decimal code by the packed truth table.
+     * The derived properties already computed are kept.
+     */
+    public void compact() {
+        
+        if(packedtt == null) {
+            packedtt = BinTools.bool2Packed(ttable);
+            ttable = null;
+            poltable = null;
+            deccode = null;
+        }
+        
+    }
+    
+    public boolean isCompact() {
+        return packedtt != null;
+    }
+    
+    /**
+     * Returns the value of the function on a given input.
+     * 
+     * @param input the decimal representation of the input (LSBF order).
+     * @return      the value of the function on input.
+     */
+    public boolean getValue(int input) {
+        
+        if(packedtt != null) {
+            return ((packedtt[input >>> 6] >>> input) & 1L) != 0;
+        }
+        
+        return ttable[input];
         
     }
     
-    //Getters.
+    /**
+     * Returns the truth table packed in 64-bit words. In compact mode this is
+     * the stored table, otherwise it is packed on each call.
+     * 
+     * @return the packed truth table of the function.
+     */
+    public long[] getPackedTtable() {
+        
+        if(packedtt != null) {
+            return packedtt;
+        }
+        
+        return BinTools.bool2Packed(ttable);
+        
+    }
+    
+    /**
+     * Copies the packed truth table in an array given by the caller, without
+     * allocating memory.
+     * 
+     * @param dest an array of at least ceil(ninputs/64) words.
+     */
+    void copyPackedTtable(long[] dest) {
+        
+        if(packedtt != null) {
+            System.arraycopy(packedtt, 0, dest, 0, packedtt.length);
+        } else {
+            BinTools.bool2Packed(ttable, dest);
+        }
+        
+    }
+    
+    /**
+     * Fills an array with the polar form of the function (0 -> 1, 1 -> -1),
+     * using the stored polar form if any.
+     * 
+     * @param dest an array of ninputs integers.
+     */
+    void copyPoltable(int[] dest) {
+        
+        if(poltable != null) {
+            System.arraycopy(poltable, 0, dest, 0, ninputs);
+        } else {
+            for(int i=0; i<ninputs; i++) {
+                dest[i] = getValue(i) ? -1 : 1;
+            }
+        }
+        
+    }
+    
+    //Lazy evaluation of the derived properties.
+    
+    /**
+     * Makes sure that the attributes of the given properties are up to date,
+     * computing them (and the properties they depend on) with
+     * CheckProp.computeProps if necessary. Each property is computed at most
+     * once, until the truth table of the function changes.
+     * 
+     * @param props a combination of CheckProp.PROP_* flags.
+     */
+    private void ensure(int props) {
+        
+        if((valid & props) != props) {
+            CheckProp.computeMissing(this, props);
+        }
+        
+    }
+    
+    /**
+     * Returns the properties whose attributes are up to date.
+     * 
+     * @return a combination of CheckProp.PROP_* flags.
+     */
+    int getValid() {
+        return valid;
+    }
+    
+    /**
+     * Marks the attributes of some properties as up to date, and those of the
+     * properties depending on them as stale.
+     * 
+     * @param props      the properties which have been set.
+     * @param dependents the properties which depend on props.
+     */
+    private void validate(int props, int dependents) {
+        valid = (valid & ~dependents) | props;
+    }
+    
+    /**
+     * Marks the arrays of some properties as owned by this object, i.e. not
+     * referenced outside of it (used by CheckProp after storing the arrays it
+     * has computed).
+     * 
+     * @param props a combination of CheckProp.PROP_* flags.
+     */
+    void own(int props) {
+        shared &= ~props;
+    }
+    
+    //Arrays which CheckProp may overwrite: null if they are missing or
+    //referenced outside of this object.
+    
+    boolean[] reusableAnfcoeffs() {
+        return ((shared & CheckProp.PROP_ANF) == 0) ? anfcoeffs : null;
+    }
+    
+    int[] reusableWhcoeffs() {
+        return ((shared & CheckProp.PROP_WALSH) == 0) ? whcoeffs : null;
+    }
+    
+    int[] reusableCid() {
+        return ((shared & CheckProp.PROP_CID) == 0) ? cid : null;
+    }
+    
+    int[] reusableAccoeffs() {
+        return ((shared & CheckProp.PROP_AC) == 0) ? accoeffs : null;
+    }
+    
+    int[] reusablePcd() {
+        return ((shared & CheckProp.PROP_PCD) == 0) ? pcd : null;
+    }
+    
+    boolean[] reusableIperm() {
+        return ((shared & CheckProp.PROP_IPERM) == 0) ? iperm : null;
+    }
+    
+    //Direct access to the spectra, without triggering their computation or
+    //marking them as shared (used by CheckProp).
+    
+    int[] peekWhcoeffs() {
+        return whcoeffs;
+    }
+    
+    int[] peekAccoeffs() {
+        return accoeffs;
+    }
+    
+    /**
+     * Marks all derived attributes as stale, e.g. when the truth table changes.
+     */
+    private void invalidate() {
+        valid = 0;
+        abshist = null;
+    }
+    
+    /**
+     * Flips the value of the function on a single input. If the Walsh
+     * spectrum is up to date, it is updated incrementally in O(2^n)
+     * operations (see BoolTransf.updateFWT), together with the spectral
+     * radius, nonlinearity and balancedness; all other derived properties
+     * become stale. This is the basic move of local search algorithms (hill
+     * climbing, genetic algorithms) over boolean functions.
+     * 
+     * @param input the decimal representation of the input to flip.
+     */
+    public void flipBit(int input) {
+        
+        boolean oldval = getValue(input);
+        
+        if(packedtt != null) {
+            packedtt[input >>> 6] ^= 1L << input;
+        } else {
+            ttable[input] = !oldval;
+        }
+        if(poltable != null) {
+            poltable[input] = -poltable[input];
+        }
+        deccode = null;
+        
+        if((valid & CheckProp.PROP_WALSH) != 0) {
+            
+            //Do not modify a spectrum referenced outside of this object
+            if((shared & CheckProp.PROP_WALSH) != 0) {
+                whcoeffs = whcoeffs.clone();
+                shared &= ~CheckProp.PROP_WALSH;
+            }
+            if(abshist == null) {
+                abshist = BoolTransf.buildAbsHist(whcoeffs);
+            }
+            sprad = BoolTransf.updateFWT(whcoeffs, input, oldval ? -1 : 1,
+                    abshist, sprad);
+            nlin = BoolTransf.calcNL(sprad, nvar);
+            isBalanced = (whcoeffs[0] == 0);
+            valid = CheckProp.PROP_WALSH;
+            
+        } else {
+            
+            invalidate();
+            
+        }
+        
+    }
+    
+    //Getters. The getters of the derived properties compute them on first
+    //access.
 
     public int[] getAccoeffs() {
+        ensure(CheckProp.PROP_AC);
+        shared |= CheckProp.PROP_AC;
         return accoeffs;
     }
 
     public int getAcmax() {
+        ensure(CheckProp.PROP_AC);
         return acmax;
     }
 
     public int getAlgdeg() {
+        ensure(CheckProp.PROP_ANF);
         return algdeg;
     }
 
     public boolean[] getAnfcoeffs() {
+        ensure(CheckProp.PROP_ANF);
+        shared |= CheckProp.PROP_ANF;
         return anfcoeffs;
     }
 
@@ -122,14 +373,30 @@ public class BooleanFunction {
     }
 
     public BigInteger getDeccode() {
+        
+        //The decimal code is derived on demand, and kept only if the function
+        //is not in compact mode.
+        if(deccode == null) {
+            
+            if(packedtt != null) {
+                return BinTools.packed2DecBig(packedtt);
+            }
+            deccode = BinTools.bin2DecBig(ttable);
+            
+        }
+        
         return deccode;
+        
     }
 
     public boolean[] getIperm() {
+        ensure(CheckProp.PROP_IPERM);
+        shared |= CheckProp.PROP_IPERM;
         return iperm;
     }
 
     public boolean isIsBalanced() {
+        ensure(CheckProp.PROP_WALSH);
         return isBalanced;
     }
 
@@ -138,6 +405,7 @@ public class BooleanFunction {
     }
 
     public int getNlinstruct() {
+        ensure(CheckProp.PROP_NLSTRUCT);
         return nlinstruct;
     }
 
@@ -146,30 +414,60 @@ public class BooleanFunction {
     }
 
     public int[] getPoltable() {
+        
+        //Derive the polar form (0 -> 1, 1 -> -1) from the truth table, and
+        //keep it only if the function is not in compact mode
+        if(poltable == null) {
+            
+            int[] pol = new int[ninputs];
+            copyPoltable(pol);
+            if(packedtt != null) {
+                return pol;
+            }
+            poltable = pol;
+            
+        }
+        
         return poltable;
+        
     }
 
     public int getSprad() {
+        ensure(CheckProp.PROP_WALSH);
         return sprad;
     }
 
     public boolean[] getTtable() {
+        
+        //In compact mode, unpack the truth table on each call
+        if(packedtt != null) {
+            return BinTools.packed2Bool(packedtt, ninputs);
+        }
+        
         return ttable;
+        
     }
 
     public int[] getWhcoeffs() {
+        ensure(CheckProp.PROP_WALSH);
+        shared |= CheckProp.PROP_WALSH;
         return whcoeffs;
     }
 
     public int getNlin() {
+        ensure(CheckProp.PROP_WALSH);
         return nlin;
     }
 
     public int[] getCid() {
+        ensure(CheckProp.PROP_CID);
+        shared |= CheckProp.PROP_CID;
         return cid;
     }
 
     public int[] getPcd() {
+        ensure(CheckProp.PROP_PCD);
+        shared |= CheckProp.PROP_PCD;
         return pcd;
     }
 
@@ -177,6 +475,9 @@ public class BooleanFunction {
 
     public void setAccoeffs(int[] accoeffs) {
         this.accoeffs = accoeffs;
+        shared |= CheckProp.PROP_AC;
+        validate(CheckProp.PROP_AC, CheckProp.PROP_SSI | CheckProp.PROP_NLSTRUCT
+                | CheckProp.PROP_PCD | CheckProp.PROP_IPERM);
     }
 
     public void setAcmax(int acmax) {
@@ -189,6 +490,8 @@ public class BooleanFunction {
 
     public void setAnfcoeffs(boolean[] anfcoeffs) {
         this.anfcoeffs = anfcoeffs;
+        shared |= CheckProp.PROP_ANF;
+        validate(CheckProp.PROP_ANF, 0);
     }
 
     public void setAnfexpr(String anfexpr) {
@@ -201,6 +504,8 @@ public class BooleanFunction {
 
     public void setIperm(boolean[] iperm) {
         this.iperm = iperm;
+        shared |= CheckProp.PROP_IPERM;
+        validate(CheckProp.PROP_IPERM, 0);
     }
 
     public void setIsBalanced(boolean isBalanced) {
@@ -209,26 +514,51 @@ public class BooleanFunction {
 
     public void setNinputs(int ninputs) {
         this.ninputs = ninputs;
+        invalidate();
     }
 
     public void setNlinstruct(int nlinstruct) {
         this.nlinstruct = nlinstruct;
+        validate(CheckProp.PROP_NLSTRUCT, 0);
     }
 
     public void setNvar(int nvar) {
         this.nvar = nvar;
+        invalidate();
     }
 
     public void setPoltable(int[] poltable) {
         this.poltable = poltable;
+        validate(0, CheckProp.PROP_ALL & ~CheckProp.PROP_ANF);
     }
 
     public void setTtable(boolean[] ttable) {
         this.ttable = ttable;
+        packedtt = null;
+        poltable = null;
+        deccode = null;
+        invalidate();
+    }
+
+    /**
+     * Sets the truth table packed in 64-bit words, switching the function to
+     * compact mode.
+     * 
+     * @param packedtt the packed truth table of the function.
+     */
+    public void setPackedTtable(long[] packedtt) {
+        this.packedtt = packedtt;
+        ttable = null;
+        poltable = null;
+        deccode = null;
+        invalidate();
     }
 
     public void setWhcoeffs(int[] whcoeffs) {
         this.whcoeffs = whcoeffs;
+        shared |= CheckProp.PROP_WALSH;
+        abshist = null;
+        validate(CheckProp.PROP_WALSH, CheckProp.PROP_ALL & ~CheckProp.PROP_ANF);
     }
 
     public void setNlin(int nlin) {
@@ -237,18 +567,24 @@ public class BooleanFunction {
 
     public void setCid(int[] cid) {
         this.cid = cid;
+        shared |= CheckProp.PROP_CID;
+        validate(CheckProp.PROP_CID, 0);
     }
 
     public void setPcd(int[] pcd) {
         this.pcd = pcd;
+        shared |= CheckProp.PROP_PCD;
+        validate(CheckProp.PROP_PCD, 0);
     }
 
-    public int getSsi() {
+    public long getSsi() {
+        ensure(CheckProp.PROP_SSI);
         return ssi;
     }
 
-    public void setSsi(int ssi) {
+    public void setSsi(long ssi) {
         this.ssi = ssi;
+        validate(CheckProp.PROP_SSI, 0);
     }
 
     public void setSprad(int sprad) {
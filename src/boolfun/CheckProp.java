@@ -14,80 +14,289 @@ import java.math.BigInteger;
 
 public class CheckProp {
     
+    //Properties which can be requested to computeProps, as bit flags.
+    
+    /** ANF coefficients and algebraic degree (Moebius Transform). */
+    public static final int PROP_ANF = 1;
+    /** Walsh spectrum, balancedness, spectral radius and nonlinearity. */
+    public static final int PROP_WALSH = 1 << 1;
+    /** Correlation-immunity deviations (requires the Walsh spectrum). */
+    public static final int PROP_CID = 1 << 2;
+    /** Autocorrelation function and its maximum (requires the Walsh spectrum). */
+    public static final int PROP_AC = 1 << 3;
+    /** Sum of squares indicator (requires the autocorrelation). */
+    public static final int PROP_SSI = 1 << 4;
+    /** Number of nonzero linear structures (requires the autocorrelation). */
+    public static final int PROP_NLSTRUCT = 1 << 5;
+    /** Propagation criterion deviations (requires the autocorrelation). */
+    public static final int PROP_PCD = 1 << 6;
+    /** Permutivity in each variable (requires the autocorrelation). */
+    public static final int PROP_IPERM = 1 << 7;
+    /** All the above properties. */
+    public static final int PROP_ALL = (1 << 8) - 1;
+    
+    //Properties which directly need the autocorrelation, or the Walsh
+    //spectrum.
+    private static final int NEEDS_AC = PROP_SSI | PROP_NLSTRUCT | PROP_PCD
+            | PROP_IPERM;
+    private static final int NEEDS_WALSH = PROP_CID | PROP_AC;
+    
     /**
-     * Computes all cryptographic properties of a boolean function, excluding the
-     * statistical tests. The following attributes are supposed to be already
-     * set: deccode, ttable, poltable, nvar, ninputs. Since all the transforms
-     * methods modify the vectors inplace, it is necessary to make copies of
-     * them before invoking those methods. The properties related to the ANF
-     * and the algebraic degree are computed only if a flag is set.
+     * Per-thread scratch space of the pipeline, grown on demand and reused
+     * across calls: the packed truth table for the Moebius Transform, the
+     * 64-bit coefficients for the autocorrelation of functions of more than
+     * 15 variables and the statistics of the autocorrelation.
+     */
+    private static final ThreadLocal<long[][]> WORKSPACE =
+            new ThreadLocal<long[][]>() {
+                @Override
+                protected long[][] initialValue() {
+                    return new long[][]{new long[0], new long[0], new long[3]};
+                }
+            };
+    
+    /**
+     * Computes the requested properties of a boolean function, together with
+     * the properties they depend on (e.g. PROP_PCD implies PROP_AC, which
+     * implies PROP_WALSH), and nothing else. The requested properties are
+     * always recomputed, while the dependencies which were not requested are
+     * reused if already up to date in the BooleanFunction. The ttable, nvar
+     * and ninputs attributes are supposed to be already set; the polar form
+     * is derived from the truth table if poltable is not set.
+     * 
+     * Each transform is computed directly in the arrays already held by the
+     * BooleanFunction, unless they have been handed out by its getters or
+     * given to its setters, in which case new arrays are allocated (so the
+     * arrays seen by the caller are never overwritten). The packed truth table
+     * for the Moebius Transform lives in a per-thread workspace, and the
+     * autocorrelation is computed in place in the int array for up to 15
+     * variables (in a per-thread 64-bit workspace beyond), so that repeated
+     * calls which only read scalar properties (e.g. getNlin) do not allocate
+     * memory.
      * 
      * @param boolfun a BooleanFunction instance representing the function.
+     * @param props   the requested properties, as a combination of the PROP_*
+     *                flags.
      * @param indices matrix containing the indices of the vector of a given
-     *        Hamming weight.
+     *                Hamming weight (needed only for PROP_CID and PROP_PCD;
+     *                if null, the deviations are computed in a single pass
+     *                without table, see HammingIndices for shared tables).
      */
-    public static void computeAllCryptoProp(BooleanFunction boolfun,
+    public static void computeProps(BooleanFunction boolfun, int props,
             int[][] indices) {
         
+        computeProps(boolfun, props, indices, boolfun.getValid() & ~props);
+        
+    }
+    
+    /**
+     * Computes the requested properties of a boolean function which are not
+     * already up to date (used by the lazy getters of BooleanFunction).
+     * 
+     * @param boolfun a BooleanFunction instance representing the function.
+     * @param props   the requested properties, as a combination of the PROP_*
+     *                flags.
+     */
+    static void computeMissing(BooleanFunction boolfun, int props) {
+        
+        computeProps(boolfun, props, null, boolfun.getValid());
+        
+    }
+    
+    /**
+     * Computes the dependency closure of the requested properties, except
+     * those given in skip.
+     */
+    private static void computeProps(BooleanFunction boolfun, int props,
+            int[][] indices, int skip) {
+        
+        int ninputs = boolfun.getNinputs();
+        int nvar = boolfun.getNvar();
+        
+        //Dependency closure of the properties to compute: a dependency is
+        //added only if it cannot be reused
+        props &= ~skip;
+        if((props & NEEDS_AC) != 0) {
+            props |= PROP_AC & ~skip;
+        }
+        if((props & NEEDS_WALSH) != 0) {
+            props |= PROP_WALSH & ~skip;
+        }
+        
         //Compute FMT-related attributes (ANF and algebraic degree)
-        boolean[] anfcoeffs = new boolean[boolfun.getNinputs()];
-        boolean[] ttable = boolfun.getTtable();
-        System.arraycopy(ttable, 0, anfcoeffs, 0, anfcoeffs.length);
-        int algdeg = BoolTransf.calcFMT(anfcoeffs, 0, anfcoeffs.length);
-        boolfun.setAnfcoeffs(anfcoeffs);
-        boolfun.setAlgdeg(algdeg);
+        if((props & PROP_ANF) != 0) {
+            
+            long[][] work = WORKSPACE.get();
+            int nwords = (ninputs+63) >>> 6;
+            if(work[0].length < nwords) {
+                work[0] = new long[nwords];
+            }
+            long[] anfpacked = work[0];
+            boolfun.copyPackedTtable(anfpacked);
+            int algdeg = BoolTransf.calcFMT(anfpacked, 0, nwords, nvar);
+            
+            boolean[] anfcoeffs = boolfun.reusableAnfcoeffs();
+            if(anfcoeffs == null || anfcoeffs.length != ninputs) {
+                anfcoeffs = new boolean[ninputs];
+            }
+            BinTools.packed2Bool(anfpacked, anfcoeffs);
+            boolfun.setAnfcoeffs(anfcoeffs);
+            boolfun.setAlgdeg(algdeg);
+            
+        }
         
         //Compute FWT-related attributes
-        int[] whcoeffs = new int[boolfun.getNinputs()];
-        int[] poltable = boolfun.getPoltable();
-        System.arraycopy(poltable, 0, whcoeffs, 0, whcoeffs.length);
-        int sprad = BoolTransf.calcFWT(whcoeffs, 0, whcoeffs.length);
-        int nlin = BoolTransf.calcNL(sprad, boolfun.getNvar());
-        int[] cid = new int[boolfun.getNvar()];
-        int[] reqcid = BoolTransf.calcDevs(whcoeffs, indices);
-        System.arraycopy(reqcid, 0, cid, 0, reqcid.length);
-        
-        if(whcoeffs[0] == 0) {
-            boolfun.setIsBalanced(true);
-        } else {
-            boolfun.setIsBalanced(false);
+        if((props & PROP_WALSH) != 0) {
+            
+            int[] whcoeffs = boolfun.reusableWhcoeffs();
+            if(whcoeffs == null || whcoeffs.length != ninputs) {
+                whcoeffs = new int[ninputs];
+            }
+            boolfun.copyPoltable(whcoeffs);
+            int sprad = BoolTransf.calcFWT(whcoeffs, 0, ninputs);
+            
+            boolfun.setIsBalanced(whcoeffs[0] == 0);
+            boolfun.setWhcoeffs(whcoeffs);
+            boolfun.setSprad(sprad);
+            boolfun.setNlin(BoolTransf.calcNL(sprad, nvar));
+            
+        }
+        
+        if((props & PROP_CID) != 0) {
+            boolfun.setCid(calcDevs(boolfun.peekWhcoeffs(), indices,
+                    reuse(boolfun.reusableCid(), nvar), nvar));
+        }
+        
+        //Compute AC-related attributes with the exact engine, which also
+        //gives the sum of squares indicator and the number of nonzero linear
+        //structures in the same pass
+        if((props & PROP_AC) != 0) {
+            
+            long[][] work = WORKSPACE.get();
+            long[] stats = work[2];
+            int[] whcoeffs = boolfun.peekWhcoeffs();
+            int[] accoeffs = boolfun.reusableAccoeffs();
+            if(accoeffs == null || accoeffs.length != ninputs) {
+                accoeffs = new int[ninputs];
+            }
+            
+            if(nvar <= 15) {
+                
+                //The unscaled autocorrelation fits in an int
+                System.arraycopy(whcoeffs, 0, accoeffs, 0, ninputs);
+                BoolTransf.calcACExact(accoeffs, stats);
+                
+            } else {
+                
+                if(work[1].length != ninputs) {
+                    work[1] = new long[ninputs];
+                }
+                long[] lcoeffs = work[1];
+                for(int i=0; i<ninputs; i++) {
+                    lcoeffs[i] = whcoeffs[i];
+                }
+                BoolTransf.calcACExact(lcoeffs, true, stats);
+                for(int i=0; i<ninputs; i++) {
+                    accoeffs[i] = (int)lcoeffs[i];
+                }
+                
+            }
+            
+            boolfun.setAcmax((int)stats[BoolTransf.AC_MAX]);
+            boolfun.setAccoeffs(accoeffs);
+            boolfun.setSsi(stats[BoolTransf.AC_SSI]);
+            boolfun.setNlinstruct((int)stats[BoolTransf.AC_NLSTRUCT]);
+            props &= ~(PROP_SSI | PROP_NLSTRUCT);
+            
+        }
+        
+        int[] accoeffs = boolfun.peekAccoeffs();
+        if((props & PROP_SSI) != 0) {
+            boolfun.setSsi(BoolTransf.calcSSI(accoeffs));
+        }
+        if((props & PROP_PCD) != 0) {
+            boolfun.setPcd(calcDevs(accoeffs, indices,
+                    reuse(boolfun.reusablePcd(), nvar), nvar));
+        }
+        if((props & PROP_NLSTRUCT) != 0) {
+            boolfun.setNlinstruct(BoolTransf.countNZLinStruct(accoeffs));
         }
-        boolfun.setWhcoeffs(whcoeffs);
-        boolfun.setSprad(sprad);
-        boolfun.setNlin(nlin);
-        boolfun.setCid(cid);
-        
-        //Compute AC-related attributes
-        int[] accoeffs = new int[boolfun.getNinputs()];
-        System.arraycopy(whcoeffs, 0, accoeffs, 0, accoeffs.length);
-        int acmax = BoolTransf.calcAC(accoeffs, true);
-        int ssi = BoolTransf.calcSSI(accoeffs);
-        int[] pcd = new int[boolfun.getNvar()];
-        int[] reqpcd = BoolTransf.calcDevs(accoeffs, indices);
-        System.arraycopy(reqpcd, 0, pcd, 0, reqpcd.length);
-        int nzls = BoolTransf.countNZLinStruct(accoeffs);
-        
-        boolfun.setAccoeffs(accoeffs);
-        boolfun.setAcmax(acmax);
-        boolfun.setSsi(ssi);
-        boolfun.setNlinstruct(nzls);
-        boolfun.setPcd(pcd);
         
         //Compute chaos-related attributes
-        boolean[] iperm = BoolTransf.checkPerm(accoeffs, boolfun.getNvar());
-        boolfun.setIperm(iperm);
+        if((props & PROP_IPERM) != 0) {
+            boolean[] iperm = boolfun.reusableIperm();
+            if(iperm == null || iperm.length != nvar) {
+                iperm = new boolean[nvar];
+            }
+            boolfun.setIperm(BoolTransf.checkPerm(accoeffs, nvar, iperm));
+        }
+        
+        //The arrays stored above are referenced only by boolfun
+        boolfun.own(props);
+        
+    }
+    
+    /**
+     * Computes the deviations of a spectrum with the table of indices given by
+     * the caller, or with a single popcount-driven pass if there is none.
+     */
+    private static int[] calcDevs(int[] coeffs, int[][] indices, int[] devs,
+            int nvar) {
+        
+        if(indices == null) {
+            return BoolTransf.calcDevs(coeffs, nvar, devs);
+        }
+        
+        return BoolTransf.calcDevs(coeffs, indices, devs);
+        
+    }
+    
+    /**
+     * Returns an array of the given length, reusing the one passed if
+     * possible.
+     */
+    private static int[] reuse(int[] array, int length) {
+        
+        if(array == null || array.length != length) {
+            return new int[length];
+        }
+        
+        return array;
+        
+    }
+    
+    /**
+     * Computes all cryptographic properties of a boolean function, excluding the
+     * statistical tests. The following attributes are supposed to be already
+     * set: deccode, ttable, nvar, ninputs.
+     * 
+     * @param boolfun a BooleanFunction instance representing the function.
+     * @param indices matrix containing the indices of the vector of a given
+     *        Hamming weight.
+     */
+    public static void computeAllCryptoProp(BooleanFunction boolfun,
+            int[][] indices) {
+        
+        computeProps(boolfun, PROP_ALL, indices);
+        
+    }
+    
+    /**
+     * Computes all cryptographic properties of a boolean function, without a
+     * table of indices (see computeProps).
+     * 
+     * @param boolfun a BooleanFunction instance representing the function.
+     */
+    public static void computeAllCryptoProp(BooleanFunction boolfun) {
+        
+        computeProps(boolfun, PROP_ALL, null);
         
     }
     
     public static void computeANF(BooleanFunction boolfun) {
         
         //Compute FMT-related attributes (ANF and algebraic degree)
-        boolean[] anfcoeffs = new boolean[boolfun.getNinputs()];
-        boolean[] ttable = boolfun.getTtable();
-        System.arraycopy(ttable, 0, anfcoeffs, 0, anfcoeffs.length);
-        int algdeg = BoolTransf.calcFMT(anfcoeffs, 0, anfcoeffs.length);
-        boolfun.setAnfcoeffs(anfcoeffs);
-        boolfun.setAlgdeg(algdeg);
+        computeProps(boolfun, PROP_ANF, null);
         
     }
     
@@ -100,52 +309,32 @@ public class CheckProp {
      */
     public static void computeWHProp(BooleanFunction boolfun, int[][] indices) {
         
-        //Compute FWT-related attributes
-        int[] whcoeffs = new int[boolfun.getNinputs()];
-        int[] poltable = boolfun.getPoltable();
-        System.arraycopy(poltable, 0, whcoeffs, 0, whcoeffs.length);
-        int sprad = BoolTransf.calcFWT(whcoeffs, 0, whcoeffs.length);
-        int nlin = BoolTransf.calcNL(sprad, boolfun.getNvar());
-        
-        if(whcoeffs[0] == 0) {
-            boolfun.setIsBalanced(true);
-        } else {
-            boolfun.setIsBalanced(false);
-        }
-        boolfun.setWhcoeffs(whcoeffs);
-        boolfun.setSprad(sprad);
-        boolfun.setNlin(nlin);
+        computeProps(boolfun, PROP_WALSH | PROP_CID, indices);
+        
+    }
+    
+    /**
+     * Same as computeWHProp(BooleanFunction, int[][]), without a table of
+     * indices (see computeProps).
+     * 
+     * @param boolfun   a BooleanFunction object representing a boolean function.
+     */
+    public static void computeWHProp(BooleanFunction boolfun) {
         
-        int[] cid = new int[boolfun.getNvar()];
-        int[] reqcid = BoolTransf.calcDevs(whcoeffs, indices);
-        System.arraycopy(reqcid, 0, cid, 0, reqcid.length);
-        boolfun.setCid(cid);
+        computeProps(boolfun, PROP_WALSH | PROP_CID, null);
         
     }
     
     public static void computeNlin(BooleanFunction boolfun) {
         
-        //Compute FWT-related attributes
-        int[] whcoeffs = new int[boolfun.getNinputs()];
-        int[] poltable = boolfun.getPoltable();
-        System.arraycopy(poltable, 0, whcoeffs, 0, whcoeffs.length);
-        int sprad = BoolTransf.calcFWT(whcoeffs, 0, whcoeffs.length);
-        int nlin = BoolTransf.calcNL(sprad, boolfun.getNvar());
-        
-        if(whcoeffs[0] == 0) {
-            boolfun.setIsBalanced(true);
-        } else {
-            boolfun.setIsBalanced(false);
-        }
-        boolfun.setWhcoeffs(whcoeffs);
-        boolfun.setSprad(sprad);
-        boolfun.setNlin(nlin);
+        computeProps(boolfun, PROP_WALSH, null);
         
     }
     
     /**
      * Computes the cyptographic properties of a boolean function, excluding
-     * the Walsh spectrum, balancedness and nonlinearity.
+     * the Walsh spectrum, balancedness and nonlinearity, which are reused if
+     * already computed.
      * 
      * @param boolfun   a BooleanFunction object representing a boolean function.
      * @param indices   indices matrix containing the indices of the vector of a given
@@ -154,64 +343,20 @@ public class CheckProp {
     public static void computeRemProp(BooleanFunction boolfun, 
             int[][] indices) {
         
-        //Compute CI deviations
-        int[] whcoeffs = boolfun.getWhcoeffs();
-        int[] cid = new int[boolfun.getNvar()];
-        int[] reqcid = BoolTransf.calcDevs(whcoeffs, indices);
-        System.arraycopy(reqcid, 0, cid, 0, reqcid.length);
-        boolfun.setCid(cid);
-        
-        //Compute FMT-related attributes (ANF and algebraic degree)
-        boolean[] anfcoeffs = new boolean[boolfun.getNinputs()];
-        boolean[] ttable = boolfun.getTtable();
-        System.arraycopy(ttable, 0, anfcoeffs, 0, anfcoeffs.length);
-        int algdeg = BoolTransf.calcFMT(anfcoeffs, 0, anfcoeffs.length);
-        boolfun.setAnfcoeffs(anfcoeffs);
-        boolfun.setAlgdeg(algdeg);
-        
-        //Compute AC-related attributes
-        int[] accoeffs = new int[boolfun.getNinputs()];
-        System.arraycopy(whcoeffs, 0, accoeffs, 0, accoeffs.length);
-        int acmax = BoolTransf.calcAC(accoeffs, true);
-        int[] pcd = new int[boolfun.getNvar()];
-        int[] reqpcd = BoolTransf.calcDevs(accoeffs, indices);
-        System.arraycopy(reqpcd, 0, pcd, 0, reqpcd.length);
-        int nzls = BoolTransf.countNZLinStruct(accoeffs);
-        
-        boolfun.setAccoeffs(accoeffs);
-        boolfun.setAcmax(acmax);
-        boolfun.setNlinstruct(nzls);
-        boolfun.setPcd(pcd);
-        
-        //Compute chaos-related attributes
-        boolean[] iperm = BoolTransf.checkPerm(accoeffs, boolfun.getNvar());
-        boolfun.setIperm(iperm);
+        computeProps(boolfun, PROP_CID | PROP_ANF | PROP_AC | PROP_PCD
+                | PROP_NLSTRUCT | PROP_IPERM, indices);
         
     }
     
     /**
-     * Computes the cyptographic properties of a boolean function, excluding
-     * the Walsh spectrum, balancedness and nonlinearity.
+     * Computes the autocorrelation and the permutivity of a boolean function,
+     * reusing its Walsh spectrum if already computed.
      * 
      * @param boolfun   a BooleanFunction object representing a boolean function.
      */
     public static void computeIPerm(BooleanFunction boolfun) {
         
-        //Compute CI deviations
-        int[] whcoeffs = boolfun.getWhcoeffs();
-        
-        //Compute AC-related attributes
-        int[] accoeffs = new int[boolfun.getNinputs()];
-        System.arraycopy(whcoeffs, 0, accoeffs, 0, accoeffs.length);
-        int acmax = BoolTransf.calcAC(accoeffs, true);
-        int nzls = BoolTransf.countNZLinStruct(accoeffs);
-        
-        boolfun.setAccoeffs(accoeffs);
-        boolfun.setAcmax(acmax);
-        
-        //Compute chaos-related attributes
-        boolean[] iperm = BoolTransf.checkPerm(accoeffs, boolfun.getNvar());
-        boolfun.setIperm(iperm);
+        computeProps(boolfun, PROP_AC | PROP_IPERM, null);
         
     }
     
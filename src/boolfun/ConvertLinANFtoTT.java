@@ -23,27 +23,85 @@ public class ConvertLinANFtoTT {
     public static boolean[] convAnf2Tt(boolean[] vect) {
         
         int tablen = (int)Math.pow(2,vect.length);
-        boolean[] ttable = new boolean[tablen];
+        long code = (vect.length == 0) ? 0L : BinTools.bool2Packed(vect)[0];
+        long[] packed = convAnf2Tt(code, vect.length,
+                new long[BitVector.nwords(tablen)]);
         
-        for(int i=0; i<tablen; i++) {
+        return BinTools.packed2Bool(packed, tablen);
+        
+    }
+    
+    /**
+     * Convert the ANF of a linear boolean function in n variables to its truth
+     * table packed in 64-bit words (LSBF order, see BinTools.bool2Packed). The
+     * table is built by doubling: starting from the table of the null function
+     * of 0 variables, the table of the first i+1 variables is the table of
+     * the first i variables followed by a copy of itself, complemented if the
+     * i-th coefficient of the control vector is set. The first 6 doublings
+     * are shifts inside the first word, the others copy whole blocks of
+     * words, so the cost is O(2^n/64).
+     * 
+     * @param vect  the control vector of the function (bit i is the
+     *              coefficient of the (i+1)-th variable).
+     * @param nvar  the number of variables of the function.
+     * @param dest  the array where the packed truth table is stored (at least
+     *              ceil(2^nvar/64) words).
+     * @return dest the packed truth table of the function.
+     */
+    public static long[] convAnf2Tt(long vect, int nvar, long[] dest) {
+        
+        //Doublings inside the first word
+        long word = 0L;
+        int inword = Math.min(nvar, 6);
+        for(int i=0; i<inword; i++) {
             
-            //Convert the current input vector in boolean form
-            boolean[] input = BinTools.dec2BinMod(i, vect.length);
+            int len = 1 << i;
+            long copy = word;
+            if(((vect >>> i) & 1L) != 0) {
+                copy ^= BitVector.mask(len);
+            }
+            word |= copy << len;
             
-            //Compute the scalar product between the control vector
-            //and the input vector
-            ttable[i] = BinTools.scalarProduct(vect,input);
+        }
+        dest[0] = word;
+        
+        //Doublings of blocks of words
+        for(int i=6; i<nvar; i++) {
             
-            //If the last bit of the control vector is set, complement the
-            //bit of the truth table
-            /*if(vect[vect.length-1]) {
-                ttable[i] ^= true;
-            }*/
-                
+            int len = 1 << (i-6);
+            long flip = (((vect >>> i) & 1L) != 0) ? -1L : 0L;
+            for(int w=0; w<len; w++) {
+                dest[w+len] = dest[w] ^ flip;
+            }
             
         }
         
-        return ttable;
+        return dest;
+        
+    }
+    
+    /**
+     * Builds the packed truth tables of all linear bipermutive rules of a
+     * given diameter, that is the linear functions in d variables depending
+     * on the leftmost and rightmost ones. The l-th table corresponds to the
+     * control vector with the first and last coefficients set, and the
+     * central coefficients given by the binary representation of l (LSBF
+     * order).
+     * 
+     * @param d the diameter of the rules (at least 2).
+     * @return  the packed truth tables of the 2^(d-2) rules.
+     */
+    public static long[][] linBipBatch(int d) {
+        
+        int numlin = 1 << (d-2);
+        long ends = 1L | (1L << (d-1));
+        long[][] tables = new long[numlin][BitVector.nwords(1 << d)];
+        
+        for(int l=0; l<numlin; l++) {
+            convAnf2Tt(ends | ((long)l << 1), d, tables[l]);
+        }
+        
+        return tables;
         
     }
     
@@ -0,0 +1,373 @@
+package boolfun;
+
+import java.util.Arrays;
+
+/**
+ * Binary matrix over GF(2), with each row packed in 64-bit words (column j of
+ * a row is stored in bit (j mod 64) of word j/64, as in BitVector). The
+ * product is computed with the Method of the Four Russians: the rows of the
+ * second matrix are split in blocks of k, all the 2^k combinations of the
+ * rows of a block are tabulated in Gray code order (one XOR of rows each),
+ * and each row of the result is then updated with one table lookup per
+ * block, indexed by k bits of the corresponding row of the first matrix.
+ * This takes O(n^3/(64k)) word operations instead of the O(n^3) bit
+ * operations of MatrixMultiplication.multSqMatrix.
+ *
+ * @author Luca Mariot
+ */
+
+public class GF2Matrix {
+
+    private int nrows;          //number of rows
+    private int ncols;          //number of columns
+    private int nwords;         //number of words of each row
+    private long[][] rows;      //packed rows
+
+    //Workspaces of the multiplication, allocated on first use
+    private long[][] table;     //combinations of a block of rows
+    private long[][] buffer;    //result of the in-place squaring
+
+    /**
+     * Class constructor, which builds the null matrix of given size.
+     *
+     * @param nrows the number of rows
+     * @param ncols the number of columns
+     */
+    public GF2Matrix(int nrows, int ncols) {
+
+        this.nrows = nrows;
+        this.ncols = ncols;
+        this.nwords = BitVector.nwords(ncols);
+        this.rows = new long[nrows][nwords];
+
+    }
+
+    /**
+     * Class constructor, which builds the null square matrix of order n.
+     *
+     * @param n the order of the matrix
+     */
+    public GF2Matrix(int n) {
+
+        this(n, n);
+
+    }
+
+    /**
+     * Builds the identity matrix of order n.
+     *
+     * @param n the order of the matrix
+     * @return  the identity matrix
+     */
+    public static GF2Matrix identity(int n) {
+
+        GF2Matrix id = new GF2Matrix(n);
+        for(int i=0; i<n; i++) {
+            id.rows[i][i >>> 6] = 1L << i;
+        }
+
+        return id;
+
+    }
+
+    /**
+     * Packs a binary matrix represented as a boolean matrix.
+     *
+     * @param matrix a boolean matrix
+     * @return       the packed matrix
+     */
+    public static GF2Matrix fromBool(boolean[][] matrix) {
+
+        GF2Matrix mat = new GF2Matrix(matrix.length,
+                (matrix.length == 0) ? 0 : matrix[0].length);
+        for(int i=0; i<mat.nrows; i++) {
+            BinTools.bool2Packed(matrix[i], mat.rows[i]);
+        }
+
+        return mat;
+
+    }
+
+    /**
+     * Unpacks the matrix in a boolean matrix.
+     *
+     * @return the matrix as a boolean matrix
+     */
+    public boolean[][] toBool() {
+
+        boolean[][] matrix = new boolean[nrows][ncols];
+        for(int i=0; i<nrows; i++) {
+            BinTools.packed2Bool(rows[i], matrix[i]);
+        }
+
+        return matrix;
+
+    }
+
+    public boolean get(int i, int j) {
+        return ((rows[i][j >>> 6] >>> j) & 1L) != 0;
+    }
+
+    public void set(int i, int j, boolean val) {
+
+        if(val) {
+            rows[i][j >>> 6] |= 1L << j;
+        } else {
+            rows[i][j >>> 6] &= ~(1L << j);
+        }
+
+    }
+
+    /**
+     * Computes the product of this matrix by another one.
+     *
+     * @param other a matrix with as many rows as the columns of this one
+     * @return      the product of the two matrices
+     */
+    public GF2Matrix multiply(GF2Matrix other) {
+
+        GF2Matrix res = new GF2Matrix(nrows, other.ncols);
+        multiply(other, res.rows);
+
+        return res;
+
+    }
+
+    /**
+     * Computes the product of this matrix by another one with the Method of
+     * the Four Russians, storing the rows of the result in an array which
+     * must be distinct from the rows of both factors.
+     *
+     * @param other a matrix with as many rows as the columns of this one
+     * @param dest  the rows of the result (nrows x other.nwords words)
+     */
+    private void multiply(GF2Matrix other, long[][] dest) {
+
+        int onw = other.nwords;
+        for(int i=0; i<nrows; i++) {
+            Arrays.fill(dest[i], 0L);
+        }
+
+        //Block size: 8 rows for large matrices, 4 for small ones (both
+        //divide 64, so a block never straddles two words)
+        int k = (other.nrows >= 64) ? 8 : 4;
+        if(table == null || table.length < (1 << k) ||
+                table[0].length != onw) {
+            table = new long[1 << k][onw];
+        }
+
+        for(int kb=0; kb<other.nrows; kb+=k) {
+
+            int keff = Math.min(k, other.nrows-kb);
+            int size = 1 << keff;
+
+            //Tabulate the combinations of rows kb..kb+keff-1 in Gray code
+            //order: combination g(i) differs from g(i-1) in one row
+            Arrays.fill(table[0], 0L);
+            int prev = 0;
+            for(int i=1; i<size; i++) {
+
+                int gray = i ^ (i >>> 1);
+                long[] row = other.rows[kb + Integer.numberOfTrailingZeros(i)];
+                long[] src = table[prev];
+                long[] dst = table[gray];
+                for(int w=0; w<onw; w++) {
+                    dst[w] = src[w] ^ row[w];
+                }
+                prev = gray;
+
+            }
+
+            //Add to each row of the result the combination selected by the
+            //bits kb..kb+keff-1 of the corresponding row of this matrix
+            int word = kb >>> 6;
+            int shift = kb & 63;
+            long mask = size-1;
+            for(int i=0; i<nrows; i++) {
+
+                int idx = (int)((rows[i][word] >>> shift) & mask);
+                if(idx != 0) {
+                    long[] comb = table[idx];
+                    long[] out = dest[i];
+                    for(int w=0; w<onw; w++) {
+                        out[w] ^= comb[w];
+                    }
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Computes the product of this matrix by a column vector: each entry of
+     * the result is the parity of a row AND the vector.
+     *
+     * @param vect a packed vector of ncols bits
+     * @return     the packed vector M*vect, of nrows bits
+     */
+    public long[] multiplyVector(long[] vect) {
+
+        long[] res = new long[Math.max(1, BitVector.nwords(nrows))];
+
+        for(int i=0; i<nrows; i++) {
+
+            long[] row = rows[i];
+            long par = 0L;
+            for(int w=0; w<nwords; w++) {
+                par ^= row[w] & vect[w];
+            }
+            res[i >>> 6] |= (long)(Long.bitCount(par) & 1) << i;
+
+        }
+
+        return res;
+
+    }
+
+    /**
+     * Replaces this (square) matrix with its square. The result is computed
+     * in an internal buffer, which is then swapped with the rows of the
+     * matrix, so repeated squarings do not allocate.
+     */
+    public void squareInPlace() {
+
+        if(buffer == null) {
+            buffer = new long[nrows][nwords];
+        }
+        multiply(this, buffer);
+
+        long[][] temp = rows;
+        rows = buffer;
+        buffer = temp;
+
+    }
+
+    /**
+     * Replaces this matrix with its product by another one (see
+     * squareInPlace()).
+     *
+     * @param other a square matrix of the same order
+     */
+    public void multiplyInPlace(GF2Matrix other) {
+
+        if(buffer == null) {
+            buffer = new long[nrows][nwords];
+        }
+        multiply(other, buffer);
+
+        long[][] temp = rows;
+        rows = buffer;
+        buffer = temp;
+
+    }
+
+    /**
+     * Check if the matrix is the identity.
+     *
+     * @return true if the matrix is the identity, false otherwise
+     */
+    public boolean isIdentity() {
+
+        if(nrows != ncols) {
+            return false;
+        }
+
+        for(int i=0; i<nrows; i++) {
+
+            long[] row = rows[i];
+            for(int w=0; w<nwords; w++) {
+                long expected = (w == (i >>> 6)) ? 1L << i : 0L;
+                if(row[w] != expected) {
+                    return false;
+                }
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Computes the transpose of the matrix, by moving each nonzero entry.
+     *
+     * @return the transpose of the matrix
+     */
+    public GF2Matrix transpose() {
+
+        GF2Matrix trans = new GF2Matrix(ncols, nrows);
+
+        for(int i=0; i<nrows; i++) {
+            for(int w=0; w<nwords; w++) {
+
+                long word = rows[i][w];
+                while(word != 0) {
+                    int j = (w << 6) + Long.numberOfTrailingZeros(word);
+                    trans.rows[j][i >>> 6] |= 1L << i;
+                    word &= word-1;
+                }
+
+            }
+        }
+
+        return trans;
+
+    }
+
+    /**
+     * Returns a copy of the matrix.
+     *
+     * @return a copy of the matrix
+     */
+    public GF2Matrix copy() {
+
+        GF2Matrix mat = new GF2Matrix(nrows, ncols);
+        for(int i=0; i<nrows; i++) {
+            System.arraycopy(rows[i], 0, mat.rows[i], 0, nwords);
+        }
+
+        return mat;
+
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+        if(this == obj) {
+            return true;
+        }
+        if(!(obj instanceof GF2Matrix)) {
+            return false;
+        }
+
+        GF2Matrix other = (GF2Matrix)obj;
+
+        return (nrows == other.nrows) && (ncols == other.ncols) &&
+                Arrays.deepEquals(rows, other.rows);
+
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Arrays.deepHashCode(rows);
+
+    }
+
+    //Getters
+
+    public int getNrows() {
+        return nrows;
+    }
+
+    public int getNcols() {
+        return ncols;
+    }
+
+    public long[] getRow(int i) {
+        return rows[i];
+    }
+
+}
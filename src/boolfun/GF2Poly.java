@@ -0,0 +1,461 @@
+package boolfun;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Arithmetic of polynomials over GF(2). A polynomial is packed in an array of
+ * 64-bit words, the coefficient of X^i being bit (i mod 64) of word i/64
+ * (LSBF order, as in BitVector); the arrays may have leading zero words. The
+ * irreducibility test is Rabin's test, and the primitivity test checks the
+ * order of X modulo the polynomial using the factorizations of 2^m-1 in
+ * OrderTools, as done by the MAGMA script enumerate_pol.m.
+ *
+ * @author Luca Mariot
+ */
+
+public class GF2Poly {
+
+    /**
+     * Returns the degree of a polynomial packed in a single word.
+     *
+     * @param pol a polynomial of degree at most 63
+     * @return    the degree of pol (-1 for the null polynomial)
+     */
+    public static int degree(long pol) {
+
+        return 63 - Long.numberOfLeadingZeros(pol);
+
+    }
+
+    /**
+     * Returns the degree of a polynomial.
+     *
+     * @param pol a packed polynomial
+     * @return    the degree of pol (-1 for the null polynomial)
+     */
+    public static int degree(long[] pol) {
+
+        for(int w=pol.length-1; w>=0; w--) {
+            if(pol[w] != 0) {
+                return (w << 6) + degree(pol[w]);
+            }
+        }
+
+        return -1;
+
+    }
+
+    /**
+     * Packs a polynomial given by its coefficients.
+     *
+     * @param coeffs the coefficients of the polynomial, from X^0 upwards
+     * @return       the packed polynomial
+     */
+    public static long[] fromBool(boolean[] coeffs) {
+
+        return BinTools.bool2Packed(coeffs,
+                new long[Math.max(1, BitVector.nwords(coeffs.length))]);
+
+    }
+
+    /**
+     * Carry-less multiplication of two words, i.e. the product of two
+     * polynomials of degree at most 63.
+     *
+     * @param a first polynomial
+     * @param b second polynomial
+     * @return  the 128-bit product, as {low word, high word}
+     */
+    public static long[] clmul(long a, long b) {
+
+        long lo = 0L;
+        long hi = 0L;
+
+        while(b != 0) {
+
+            int i = Long.numberOfTrailingZeros(b);
+            lo ^= a << i;
+            if(i > 0) {
+                hi ^= a >>> (64-i);
+            }
+            b &= b-1;
+
+        }
+
+        return new long[]{lo, hi};
+
+    }
+
+    /**
+     * Computes the product of two polynomials.
+     *
+     * @param a first polynomial
+     * @param b second polynomial
+     * @return  the product a*b
+     */
+    public static long[] multiply(long[] a, long[] b) {
+
+        long[] prod = new long[a.length + b.length];
+
+        for(int i=0; i<a.length; i++) {
+
+            if(a[i] == 0) {
+                continue;
+            }
+            for(int j=0; j<b.length; j++) {
+                long[] p = clmul(a[i], b[j]);
+                prod[i+j] ^= p[0];
+                prod[i+j+1] ^= p[1];
+            }
+
+        }
+
+        return prod;
+
+    }
+
+    /**
+     * Computes the remainder of the division of a polynomial by another one.
+     *
+     * @param a   the dividend
+     * @param mod the divisor (not null)
+     * @return    a mod mod, in ceil(deg(mod)/64) words (at least 1)
+     */
+    public static long[] mod(long[] a, long[] mod) {
+
+        int dm = degree(mod);
+        if(dm < 0) {
+            throw new ArithmeticException("Division by the null polynomial");
+        }
+
+        long[] rem = Arrays.copyOf(a, Math.max(a.length, mod.length));
+        for(int i=degree(rem); i>=dm; i--) {
+
+            //Cancel the leading term with a shifted copy of the divisor
+            if(((rem[i >>> 6] >>> i) & 1L) != 0) {
+                xorShifted(rem, mod, i-dm);
+            }
+
+        }
+
+        return Arrays.copyOf(rem, Math.max(1, BitVector.nwords(dm)));
+
+    }
+
+    /**
+     * Adds (XOR) to a polynomial another one multiplied by X^shift.
+     */
+    private static void xorShifted(long[] acc, long[] pol, int shift) {
+
+        int ws = shift >>> 6;
+        int bs = shift & 63;
+
+        for(int w=0; w<pol.length && w+ws<acc.length; w++) {
+
+            acc[w+ws] ^= pol[w] << bs;
+            if(bs > 0 && w+ws+1 < acc.length) {
+                acc[w+ws+1] ^= pol[w] >>> (64-bs);
+            }
+
+        }
+
+    }
+
+    /**
+     * Computes the product of two polynomials modulo a third one.
+     *
+     * @param a   first polynomial
+     * @param b   second polynomial
+     * @param mod the modulus
+     * @return    a*b mod mod
+     */
+    public static long[] mulMod(long[] a, long[] b, long[] mod) {
+
+        return mod(multiply(a, b), mod);
+
+    }
+
+    /**
+     * Computes a power of a polynomial modulo another one, with the
+     * left-to-right square-and-multiply algorithm.
+     *
+     * @param a   the base
+     * @param exp a nonnegative exponent
+     * @param mod the modulus
+     * @return    a^exp mod mod
+     */
+    public static long[] powMod(long[] a, BigInteger exp, long[] mod) {
+
+        long[] base = mod(a, mod);
+        long[] res = mod(new long[]{1L}, mod);
+
+        for(int i=exp.bitLength()-1; i>=0; i--) {
+
+            res = mulMod(res, res, mod);
+            if(exp.testBit(i)) {
+                res = mulMod(res, base, mod);
+            }
+
+        }
+
+        return res;
+
+    }
+
+    /**
+     * Computes X^(2^k) modulo a polynomial, by k squarings of X.
+     *
+     * @param k   the number of squarings
+     * @param mod the modulus
+     * @return    X^(2^k) mod mod
+     */
+    public static long[] xPow2k(int k, long[] mod) {
+
+        long[] res = mod(new long[]{2L}, mod);
+        for(int i=0; i<k; i++) {
+            res = mulMod(res, res, mod);
+        }
+
+        return res;
+
+    }
+
+    /**
+     * Computes the greatest common divisor of two polynomials, with the
+     * Euclidean algorithm.
+     *
+     * @param a first polynomial
+     * @param b second polynomial
+     * @return  gcd(a, b)
+     */
+    public static long[] gcd(long[] a, long[] b) {
+
+        long[] x = a;
+        long[] y = b;
+
+        while(degree(y) >= 0) {
+            long[] r = mod(x, y);
+            x = y;
+            y = r;
+        }
+
+        return x;
+
+    }
+
+    /**
+     * Computes the greatest common divisor of two polynomials of degree at
+     * most 63, with the Euclidean algorithm on single words.
+     *
+     * @param a first polynomial
+     * @param b second polynomial
+     * @return  gcd(a, b)
+     */
+    public static long gcd(long a, long b) {
+
+        while(b != 0) {
+
+            //Reduce a modulo b, then swap them
+            int db = degree(b);
+            for(int da=degree(a); da>=db; da=degree(a)) {
+                a ^= b << (da-db);
+            }
+            long temp = a;
+            a = b;
+            b = temp;
+
+        }
+
+        return a;
+
+    }
+
+    /**
+     * Check whether two polynomials are coprime.
+     *
+     * @param a first polynomial
+     * @param b second polynomial
+     * @return  true if gcd(a, b) = 1
+     */
+    public static boolean areCoprime(long[] a, long[] b) {
+
+        if(a.length == 1 && b.length == 1) {
+            return gcd(a[0], b[0]) == 1L;
+        }
+
+        return isOne(gcd(a, b));
+
+    }
+
+    /**
+     * Check whether a polynomial is the constant 1.
+     *
+     * @param pol a packed polynomial
+     * @return    true if pol = 1
+     */
+    public static boolean isOne(long[] pol) {
+
+        return degree(pol) == 0;
+
+    }
+
+    /**
+     * Check whether a polynomial is irreducible with Rabin's test: a
+     * polynomial p of degree m is irreducible if and only if X^(2^m) = X mod
+     * p and gcd(X^(2^(m/r)) - X, p) = 1 for each prime factor r of m.
+     *
+     * @param pol a packed polynomial
+     * @return    true if pol is irreducible over GF(2)
+     */
+    public static boolean isIrreducible(long[] pol) {
+
+        int m = degree(pol);
+        if(m <= 0) {
+            return false;
+        }
+
+        long[] x = mod(new long[]{2L}, pol);
+        long[] diff = xPow2k(m, pol);
+        diff[0] ^= x[0];
+        if(degree(diff) >= 0) {
+            return false;
+        }
+
+        int rest = m;
+        for(int r=2; r<=rest; r++) {
+
+            if(rest % r != 0) {
+                continue;
+            }
+            while(rest % r == 0) {
+                rest /= r;
+            }
+
+            diff = xPow2k(m/r, pol);
+            diff[0] ^= x[0];
+            if(!isOne(gcd(pol, diff))) {
+                return false;
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Check whether a polynomial is primitive, that is irreducible of degree
+     * m with X of order 2^m-1 modulo the polynomial. The order of X is
+     * maximal if X^((2^m-1)/q) differs from 1 for each prime factor q of
+     * 2^m-1 (see OrderTools.factorMersenne).
+     *
+     * @param pol a packed polynomial of degree at most OrderTools.MAX_EXP
+     * @return    true if pol is primitive over GF(2)
+     */
+    public static boolean isPrimitive(long[] pol) {
+
+        int m = degree(pol);
+        if((pol[0] & 1L) == 0 || !isIrreducible(pol)) {
+            return false;
+        }
+
+        BigInteger max = BigInteger.ONE.shiftLeft(m).subtract(BigInteger.ONE);
+        BigInteger[] factors = OrderTools.factorMersenne(m);
+        long[] x = {2L};
+        for(int i=0; i<factors.length; i++) {
+
+            if(i > 0 && factors[i].equals(factors[i-1])) {
+                continue;
+            }
+            if(isOne(powMod(x, max.divide(factors[i]), pol))) {
+                return false;
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Computes the minimal polynomial of a vector with respect to a square
+     * matrix, i.e. the monic polynomial c of least degree with c(M)v = 0. The
+     * vectors v, Mv, M^2v, ... are reduced by Gaussian elimination until the
+     * first linear dependency, whose coefficients are tracked along the
+     * reduction. If the minimal polynomial of the matrix is irreducible, it
+     * coincides with the minimal polynomial of any nonzero vector.
+     *
+     * @param matrix a square packed matrix of order m
+     * @param vect   a packed vector of m bits
+     * @return       the minimal polynomial of vect
+     */
+    public static long[] minimalPolynomial(GF2Matrix matrix, long[] vect) {
+
+        int m = matrix.getNrows();
+        int cw = BitVector.nwords(m+1);
+        long[][] basis = new long[m][];     //reduced vectors, by pivot
+        long[][] combs = new long[m][];     //their coefficients
+
+        long[] u = vect.clone();
+        for(int k=0; k<=m; k++) {
+
+            long[] red = u.clone();
+            long[] comb = new long[cw];
+            comb[k >>> 6] |= 1L << k;
+
+            //Reduce by the basis, from the highest pivot down
+            int piv = degree(red);
+            while(piv >= 0 && basis[piv] != null) {
+                for(int w=0; w<red.length; w++) {
+                    red[w] ^= basis[piv][w];
+                }
+                for(int w=0; w<cw; w++) {
+                    comb[w] ^= combs[piv][w];
+                }
+                piv = degree(red);
+            }
+
+            if(piv < 0) {
+                return comb;
+            }
+            basis[piv] = red;
+            combs[piv] = comb;
+
+            u = matrix.multiplyVector(u);
+
+        }
+
+        //Never reached: m+1 vectors of m bits are dependent
+        return null;
+
+    }
+
+    /**
+     * Converts a polynomial in a string, in the same format used by
+     * CheckProp.printPolynomial (e.g. "1 + X^2 + X^3").
+     *
+     * @param pol a packed polynomial
+     * @return    the polynomial as a string
+     */
+    public static String toString(long[] pol) {
+
+        StringBuilder str = new StringBuilder();
+        int deg = degree(pol);
+
+        for(int i=0; i<=deg; i++) {
+
+            if(((pol[i >>> 6] >>> i) & 1L) != 0) {
+                if(str.length() > 0) {
+                    str.append(" + ");
+                }
+                str.append((i == 0) ? "1" : "X^"+i);
+            }
+
+        }
+
+        return (str.length() == 0) ? "0" : str.toString();
+
+    }
+
+}
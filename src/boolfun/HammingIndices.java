@@ -0,0 +1,102 @@
+package boolfun;
+
+
+
+/**
+ * Tables of the inputs of n variables grouped by Hamming weight, in the format
+ * expected by BoolTransf.calcDevs and BoolTransf.calcAlgDeg: row i contains, in
+ * increasing order, the inputs of Hamming weight i+1. The rows are generated
+ * with Gosper's hack (next integer with the same number of set bits), and one
+ * table per number of variables is cached and shared by all callers.
+ * 
+ * @author Luca Mariot
+ * @version 1.0
+ */
+
+public class HammingIndices {
+    
+    //Cached tables, indexed by number of variables.
+    private static final int[][][] TABLES = new int[31][][];
+    
+    /**
+     * Returns the shared table of the inputs of nvar variables grouped by
+     * Hamming weight, building it on first use. The table is shared by all
+     * callers and must not be modified: use copyIndices to get a private copy.
+     * 
+     * @param nvar  the number of variables (at most 30).
+     * @return      the matrix of the inputs sorted by Hamming weight.
+     */
+    public static int[][] getIndices(int nvar) {
+        
+        synchronized(TABLES) {
+            
+            if(TABLES[nvar] == null) {
+                TABLES[nvar] = buildIndices(nvar);
+            }
+            
+            return TABLES[nvar];
+            
+        }
+        
+    }
+    
+    /**
+     * Returns a private copy of the table of the inputs of nvar variables
+     * grouped by Hamming weight.
+     * 
+     * @param nvar  the number of variables (at most 30).
+     * @return      a copy of the matrix of the inputs sorted by Hamming weight.
+     */
+    public static int[][] copyIndices(int nvar) {
+        
+        int[][] shared = getIndices(nvar);
+        int[][] copy = new int[shared.length][];
+        
+        for(int i=0; i<shared.length; i++) {
+            copy[i] = shared[i].clone();
+        }
+        
+        return copy;
+        
+    }
+    
+    /**
+     * Builds the table of the inputs of nvar variables grouped by Hamming
+     * weight. Each row is enumerated with Gosper's hack, starting from the
+     * smallest input of weight k (the k lowest bits set).
+     * 
+     * @param nvar  the number of variables.
+     * @return      the matrix of the inputs sorted by Hamming weight.
+     */
+    private static int[][] buildIndices(int nvar) {
+        
+        int[][] indices = new int[nvar][];
+        long binom = 1;
+        
+        for(int k=1; k<=nvar; k++) {
+            
+            //Row sizes are the binomial coefficients C(nvar, k)
+            binom = binom*(nvar-k+1)/k;
+            int[] row = new int[(int)binom];
+            
+            int x = (1 << k) - 1;
+            for(int j=0; j<row.length; j++) {
+                
+                row[j] = x;
+                
+                //Gosper's hack: next integer with k bits set
+                int c = x & -x;
+                int r = x + c;
+                x = (((r ^ x) >>> 2) / c) | r;
+                
+            }
+            
+            indices[k-1] = row;
+            
+        }
+        
+        return indices;
+        
+    }
+    
+}
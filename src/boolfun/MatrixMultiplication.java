@@ -1,6 +1,6 @@
 package boolfun;
 
-
+import java.math.BigInteger;
 
 /**
  * Tools for binary matrix multiplication and exponentiation
@@ -13,27 +13,105 @@ public class MatrixMultiplication {
     public static boolean[][] multSqMatrix(boolean[][] matrix1, 
             boolean[][] matrix2) {
         
-        int n = matrix1.length; //the two matrices are square of the same order n
+        //The two matrices are square of the same order. Multiply the packed
+        //matrices with the Method of the Four Russians
+        return GF2Matrix.fromBool(matrix1).multiply(
+                GF2Matrix.fromBool(matrix2)).toBool();
         
-        boolean[][] res = new boolean[n][n];
+    }
+    
+    /**
+     * Square matrix exponentiation using the square-and-multiply algorithm,
+     * for long exponents (see expSqMatrix(GF2Matrix, BigInteger)).
+     * 
+     * @param matrix a square packed matrix
+     * @param exp    a nonnegative exponent
+     * @return       matrix^exp
+     */
+    public static GF2Matrix expSqMatrix(GF2Matrix matrix, long exp) {
         
-        for(int i=0; i<n; i++) {
+        return expSqMatrix(matrix, BigInteger.valueOf(exp));
+        
+    }
+    
+    /**
+     * Square matrix exponentiation using the left-to-right square-and-multiply
+     * algorithm, for exponents of any size. The result starts from the matrix
+     * itself (the most significant bit of the exponent), so no squaring of
+     * the identity is performed.
+     * 
+     * @param matrix a square packed matrix
+     * @param exp    a nonnegative exponent
+     * @return       matrix^exp
+     */
+    public static GF2Matrix expSqMatrix(GF2Matrix matrix, BigInteger exp) {
+        
+        return expSqMatrix(matrix, exp, 1);
+        
+    }
+    
+    /**
+     * Square matrix exponentiation using the left-to-right sliding window
+     * algorithm. The odd powers matrix^1, matrix^3, ..., matrix^(2^w-1) are
+     * precomputed, and the exponent is scanned in windows of at most w bits
+     * starting and ending with a 1, each costing one multiplication. With
+     * w=1 this is the plain square-and-multiply algorithm; larger windows
+     * save multiplications on long exponents with many bits set.
+     * 
+     * @param matrix a square packed matrix
+     * @param exp    a nonnegative exponent
+     * @param window the maximum width w of a window (at least 1)
+     * @return       matrix^exp
+     */
+    public static GF2Matrix expSqMatrix(GF2Matrix matrix, BigInteger exp,
+            int window) {
+        
+        if(exp.signum() < 0) {
+            throw new IllegalArgumentException("Negative exponent: "+exp);
+        }
+        if(exp.signum() == 0) {
+            return GF2Matrix.identity(matrix.getNrows());
+        }
+        
+        //Odd powers: odd[j] = matrix^(2j+1)
+        GF2Matrix[] odd = new GF2Matrix[1 << (window-1)];
+        odd[0] = matrix;
+        if(odd.length > 1) {
+            GF2Matrix sq = matrix.multiply(matrix);
+            for(int j=1; j<odd.length; j++) {
+                odd[j] = odd[j-1].multiply(sq);
+            }
+        }
+        
+        GF2Matrix res = null;
+        int i = exp.bitLength()-1;
+        while(i >= 0) {
             
-            boolean[] row = matrix1[i];
-            //Calculate the i-th row of the result as the scalar product of the
-            //i-th row of the first matrix and all columns of the second
-            for(int j=0; j<n; j++) {
-                
-                //Extract the j-th column
-                boolean[] col = new boolean[matrix2.length];
-                for(int k=0; k<n; k++) {
-                    col[k] = matrix2[k][j];
+            if(!exp.testBit(i)) {
+                res.squareInPlace();
+                i--;
+                continue;
+            }
+            
+            //Longest window exp[i..s] of at most w bits ending with a 1
+            int s = Math.max(i-window+1, 0);
+            while(!exp.testBit(s)) {
+                s++;
+            }
+            int val = 0;
+            for(int k=i; k>=s; k--) {
+                val = (val << 1) | (exp.testBit(k) ? 1 : 0);
+            }
+            
+            if(res == null) {
+                res = odd[val >>> 1].copy();
+            } else {
+                for(int k=i; k>=s; k--) {
+                    res.squareInPlace();
                 }
-                
-                //Compute the scalar product
-                res[i][j] = BinTools.scalarProduct(row, col);
-                
+                res.multiplyInPlace(odd[val >>> 1]);
             }
+            i = s-1;
             
         }
         
@@ -43,6 +121,7 @@ public class MatrixMultiplication {
     
     /**
      * Square matrix exponentiation using the square-and-multiply algorithm
+     * (see expSqMatrix(GF2Matrix, long)).
      * @param matrix
      * @param exp
      * @param length
@@ -50,30 +129,7 @@ public class MatrixMultiplication {
      */
     public static boolean[][] expSqMatrix(boolean[][] matrix, int exp, int length) {
         
-        int n = matrix.length;
-        boolean[][] res = new boolean[n][n];
-        //Initialize the result to the identity matrix
-        for(int i=0; i<n; i++) {
-            res[i][i] = true;
-        }
-        
-        //Get the binary representation of exp
-        boolean[] binexp = BinTools.dec2BinMod(exp, length);
-        
-        for(int i=length-1; i>=0; i--) {
-            
-            //Square the current result
-            res = multSqMatrix(res, res);
-            
-            //Multiply the current result by the matrix only if the current bit
-            //of the exponent is 0
-            if(binexp[i]) {
-                res = multSqMatrix(res, matrix);
-            }
-            
-        }
-        
-        return res;
+        return expSqMatrix(GF2Matrix.fromBool(matrix), (long)exp).toBool();
         
     }
     
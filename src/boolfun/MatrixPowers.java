@@ -0,0 +1,109 @@
+package boolfun;
+
+import java.math.BigInteger;
+import java.util.Vector;
+
+/**
+ * Powers of a fixed square binary matrix M. The repeated squarings M^(2^k)
+ * are computed on demand and cached, so that M^e is the product of the cached
+ * squarings selected by the bits of e. When many exponents of similar size
+ * are tested on the same matrix (e.g. the candidate orders (2^m-1)/p in
+ * OrderTools), the squarings are shared and each further power only costs
+ * hwt(e)-1 multiplications.
+ *
+ * @author Luca Mariot
+ */
+
+public class MatrixPowers {
+
+    private GF2Matrix matrix;               //the base matrix M
+    private Vector<GF2Matrix> squarings;    //M^(2^k), k=0,1,...
+
+    /**
+     * Class constructor.
+     *
+     * @param matrix a square packed matrix
+     */
+    public MatrixPowers(GF2Matrix matrix) {
+
+        this.matrix = matrix;
+        this.squarings = new Vector<GF2Matrix>();
+        squarings.add(matrix);
+
+    }
+
+    /**
+     * Returns M^(2^k), extending the cache of squarings if needed.
+     *
+     * @param k a nonnegative integer
+     * @return  the matrix raised to 2^k (not to be modified)
+     */
+    public GF2Matrix getSquaring(int k) {
+
+        while(squarings.size() <= k) {
+            GF2Matrix last = squarings.lastElement();
+            squarings.add(last.multiply(last));
+        }
+
+        return squarings.elementAt(k);
+
+    }
+
+    /**
+     * Computes a power of the matrix as the product of the cached squarings
+     * selected by the bits of the exponent.
+     *
+     * @param exp a nonnegative exponent
+     * @return    M^exp
+     */
+    public GF2Matrix power(BigInteger exp) {
+
+        if(exp.signum() < 0) {
+            throw new IllegalArgumentException("Negative exponent: "+exp);
+        }
+        if(exp.signum() == 0) {
+            return GF2Matrix.identity(matrix.getNrows());
+        }
+
+        //Start from the lowest squaring selected by exp
+        int low = exp.getLowestSetBit();
+        GF2Matrix res = getSquaring(low).copy();
+        for(int k=low+1; k<exp.bitLength(); k++) {
+            if(exp.testBit(k)) {
+                res.multiplyInPlace(getSquaring(k));
+            }
+        }
+
+        return res;
+
+    }
+
+    /**
+     * Computes a power of the matrix (long version of power(BigInteger)).
+     *
+     * @param exp a nonnegative exponent
+     * @return    M^exp
+     */
+    public GF2Matrix power(long exp) {
+
+        return power(BigInteger.valueOf(exp));
+
+    }
+
+    /**
+     * Check whether a power of the matrix is the identity.
+     *
+     * @param exp a nonnegative exponent
+     * @return    true if M^exp is the identity
+     */
+    public boolean isIdentityPower(BigInteger exp) {
+
+        return power(exp).isIdentity();
+
+    }
+
+    public GF2Matrix getMatrix() {
+        return matrix;
+    }
+
+}
@@ -0,0 +1,344 @@
+package boolfun;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * Multiplicative order of invertible binary matrices, with respect to the
+ * maximum period 2^m-1 of the sequences generated by a linear recurrence of
+ * order m. The order of a matrix M with M^(2^m-1) = I is found from the
+ * factorization of 2^m-1: M has maximal order if M^((2^m-1)/p) differs from
+ * the identity for each prime factor p, and in general the exact order is
+ * obtained by dividing 2^m-1 by each prime factor as long as the power of M
+ * stays the identity. This takes O(w log N) exponentiations, where w is the
+ * number of distinct prime factors of N = 2^m-1, instead of one per divisor
+ * of N.
+ *
+ * The factorizations of 2^m-1 for m up to 128 are built from a table of the
+ * factorizations of the cyclotomic numbers Phi_d(2) (the Cunningham tables),
+ * since 2^m-1 is the product of Phi_d(2) over all divisors d of m.
+ *
+ * @author Luca Mariot
+ */
+
+public class OrderTools {
+
+    /**
+     * Largest exponent m for which the factorization of 2^m-1 is available.
+     */
+    public static final int MAX_EXP = 128;
+
+    /**
+     * Prime factors (with multiplicity) of the cyclotomic number Phi_d(2),
+     * for d = 1..128.
+     */
+    private static final String[] CYCLOTOMIC_FACTORS = {
+        "",                                                    //1
+        "3",                                                   //2
+        "7",                                                   //3
+        "5",                                                   //4
+        "31",                                                  //5
+        "3",                                                   //6
+        "127",                                                 //7
+        "17",                                                  //8
+        "73",                                                  //9
+        "11",                                                  //10
+        "23 89",                                               //11
+        "13",                                                  //12
+        "8191",                                                //13
+        "43",                                                  //14
+        "151",                                                 //15
+        "257",                                                 //16
+        "131071",                                              //17
+        "3 19",                                                //18
+        "524287",                                              //19
+        "5 41",                                                //20
+        "7 337",                                               //21
+        "683",                                                 //22
+        "47 178481",                                           //23
+        "241",                                                 //24
+        "601 1801",                                            //25
+        "2731",                                                //26
+        "262657",                                              //27
+        "29 113",                                              //28
+        "233 1103 2089",                                       //29
+        "331",                                                 //30
+        "2147483647",                                          //31
+        "65537",                                               //32
+        "599479",                                              //33
+        "43691",                                               //34
+        "71 122921",                                           //35
+        "37 109",                                              //36
+        "223 616318177",                                       //37
+        "174763",                                              //38
+        "79 121369",                                           //39
+        "61681",                                               //40
+        "13367 164511353",                                     //41
+        "5419",                                                //42
+        "431 9719 2099863",                                    //43
+        "397 2113",                                            //44
+        "631 23311",                                           //45
+        "2796203",                                             //46
+        "2351 4513 13264529",                                  //47
+        "97 673",                                              //48
+        "4432676798593",                                       //49
+        "251 4051",                                            //50
+        "103 2143 11119",                                      //51
+        "53 157 1613",                                         //52
+        "6361 69431 20394401",                                 //53
+        "3 87211",                                             //54
+        "881 3191 201961",                                     //55
+        "15790321",                                            //56
+        "32377 1212847",                                       //57
+        "59 3033169",                                          //58
+        "179951 3203431780337",                                //59
+        "61 1321",                                             //60
+        "2305843009213693951",                                 //61
+        "715827883",                                           //62
+        "92737 649657",                                        //63
+        "641 6700417",                                         //64
+        "145295143558111",                                     //65
+        "67 20857",                                            //66
+        "193707721 761838257287",                              //67
+        "137 953 26317",                                       //68
+        "10052678938039",                                      //69
+        "281 86171",                                           //70
+        "228479 48544121 212885833",                           //71
+        "433 38737",                                           //72
+        "439 2298041 9361973132609",                           //73
+        "1777 25781083",                                       //74
+        "100801 10567201",                                     //75
+        "229 457 525313",                                      //76
+        "581283643249112959",                                  //77
+        "22366891",                                            //78
+        "2687 202029703 1113491139767",                        //79
+        "4278255361",                                          //80
+        "2593 71119 97685839",                                 //81
+        "83 8831418697",                                       //82
+        "167 57912614113275649087721",                         //83
+        "1429 14449",                                          //84
+        "9520972806333758431",                                 //85
+        "2932031007403",                                       //86
+        "4177 9857737155463",                                  //87
+        "353 2931542417",                                      //88
+        "618970019642690137449562111",                         //89
+        "18837001",                                            //90
+        "911 112901153 23140471537",                           //91
+        "277 1013 1657 30269",                                 //92
+        "658812288653553079",                                  //93
+        "283 165768537521",                                    //94
+        "191 420778751 30327152671",                           //95
+        "193 22253377",                                        //96
+        "11447 13842607235828485645766393",                    //97
+        "4363953127297",                                       //98
+        "199 153649 33057806959",                              //99
+        "5 101 8101 268501",                                   //100
+        "7432339208719 341117531003194129",                    //101
+        "307 2857 6529",                                       //102
+        "2550183799 3976656429941438590393",                   //103
+        "858001 308761441",                                    //104
+        "29191 106681 152041",                                 //105
+        "107 28059810762433",                                  //106
+        "162259276829213363391578010288127",                   //107
+        "246241 279073",                                       //108
+        "745988807 870035986098720987332873",                  //109
+        "11 2971 48912491",                                    //110
+        "321679 26295457 319020217",                           //111
+        "5153 54410972897",                                    //112
+        "3391 23279 65993 1868569 1066818132868207",           //113
+        "571 160465489",                                       //114
+        "14951 4036961 2646507710984041",                      //115
+        "107367629 536903681",                                 //116
+        "937 6553 86113 7830118297",                           //117
+        "2833 37171 1824726041",                               //118
+        "239 20231 62983048367 131105292137",                  //119
+        "4562284561",                                          //120
+        "727 1786393878363164227858270210279",                 //121
+        "768614336404564651",                                  //122
+        "3887047 177722253954175633",                          //123
+        "5581 8681 49477 384773",                              //124
+        "269089806001 4710883168879506001",                    //125
+        "77158673929",                                         //126
+        "170141183460469231731687303715884105727",             //127
+        "274177 67280421310721"                                //128
+    };
+
+    /**
+     * Returns the prime factors of 2^m-1, sorted in increasing order and
+     * repeated according to their multiplicity.
+     *
+     * @param m an exponent between 1 and MAX_EXP
+     * @return  the prime factors of 2^m-1
+     */
+    public static BigInteger[] factorMersenne(int m) {
+
+        if(m < 1 || m > MAX_EXP) {
+            throw new IllegalArgumentException("No factorization of 2^"+m+
+                    "-1 available");
+        }
+
+        Vector<BigInteger> factors = new Vector<BigInteger>();
+        for(int d=1; d<=m; d++) {
+
+            if(m % d == 0 && !CYCLOTOMIC_FACTORS[d-1].isEmpty()) {
+                String[] primes = CYCLOTOMIC_FACTORS[d-1].split(" ");
+                for(int k=0; k<primes.length; k++) {
+                    factors.add(new BigInteger(primes[k]));
+                }
+            }
+
+        }
+
+        BigInteger[] sorted = factors.toArray(new BigInteger[factors.size()]);
+        Arrays.sort(sorted);
+
+        return sorted;
+
+    }
+
+    /**
+     * Returns all the divisors of 2^m-1, in increasing order.
+     *
+     * @param m an exponent between 1 and MAX_EXP
+     * @return  the divisors of 2^m-1
+     */
+    public static BigInteger[] divisorsMersenne(int m) {
+
+        BigInteger[] factors = factorMersenne(m);
+        Vector<BigInteger> divs = new Vector<BigInteger>();
+        divs.add(BigInteger.ONE);
+
+        //Multiply the divisors found so far by each power of each prime
+        int i = 0;
+        while(i < factors.length) {
+
+            int j = i;
+            while(j < factors.length && factors[j].equals(factors[i])) {
+                j++;
+            }
+
+            int ndivs = divs.size();
+            BigInteger pow = BigInteger.ONE;
+            for(int e=0; e<j-i; e++) {
+                pow = pow.multiply(factors[i]);
+                for(int k=0; k<ndivs; k++) {
+                    divs.add(divs.elementAt(k).multiply(pow));
+                }
+            }
+            i = j;
+
+        }
+
+        BigInteger[] sorted = divs.toArray(new BigInteger[divs.size()]);
+        Arrays.sort(sorted);
+
+        return sorted;
+
+    }
+
+    /**
+     * Computes the order of a square binary matrix of order m, provided that
+     * it divides 2^m-1.
+     *
+     * @param matrix a square binary matrix of order m (1 <= m <= MAX_EXP)
+     * @return       the order of matrix, or -1 if matrix^(2^m-1) is not the
+     *               identity
+     */
+    public static BigInteger findOrder(GF2Matrix matrix) {
+
+        int m = matrix.getNrows();
+        BigInteger ord = BigInteger.ONE.shiftLeft(m).subtract(BigInteger.ONE);
+
+        //All the candidate exponents share the squarings of the matrix
+        MatrixPowers powers = new MatrixPowers(matrix);
+        if(!powers.isIdentityPower(ord)) {
+            return BigInteger.ONE.negate();
+        }
+
+        //Strip each prime factor from the order as long as the power of the
+        //matrix remains the identity
+        BigInteger[] factors = factorMersenne(m);
+        int i = 0;
+        while(i < factors.length) {
+
+            //factors[i..j-1] are the copies of the same prime
+            int j = i;
+            while(j < factors.length && factors[j].equals(factors[i])) {
+                j++;
+            }
+
+            for(int k=i; k<j; k++) {
+
+                BigInteger cand = ord.divide(factors[i]);
+                if(!powers.isIdentityPower(cand)) {
+                    break;
+                }
+                ord = cand;
+
+            }
+            i = j;
+
+        }
+
+        return ord;
+
+    }
+
+    /**
+     * Checks whether a square binary matrix of order m has the maximal order
+     * 2^m-1, by testing only the maximal divisors (2^m-1)/p.
+     *
+     * @param matrix a square binary matrix of order m (1 <= m <= MAX_EXP)
+     * @return       true if the order of matrix is 2^m-1, false otherwise
+     */
+    public static boolean hasMaximalOrder(GF2Matrix matrix) {
+
+        int m = matrix.getNrows();
+        BigInteger max = BigInteger.ONE.shiftLeft(m).subtract(BigInteger.ONE);
+
+        MatrixPowers powers = new MatrixPowers(matrix);
+        if(!powers.isIdentityPower(max)) {
+            return false;
+        }
+
+        BigInteger[] factors = factorMersenne(m);
+        for(int i=0; i<factors.length; i++) {
+
+            if(i > 0 && factors[i].equals(factors[i-1])) {
+                continue;
+            }
+            if(powers.isIdentityPower(max.divide(factors[i]))) {
+                return false;
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Checks whether a square binary matrix of order m has the maximal order
+     * 2^m-1 through its minimal polynomial, as done by enumerate_pol.m: the
+     * order is maximal if and only if the minimal polynomial of the matrix is
+     * primitive of degree m. If so, it coincides with the minimal polynomial
+     * of the first unit vector, which is computed from the Krylov sequence
+     * (GF2Poly.minimalPolynomial) instead of exponentiating the matrix.
+     *
+     * @param matrix a square binary matrix of order m (1 <= m <= MAX_EXP)
+     * @return       true if the order of matrix is 2^m-1, false otherwise
+     */
+    public static boolean hasPrimitiveMinPoly(GF2Matrix matrix) {
+
+        int m = matrix.getNrows();
+        long[] unit = new long[BitVector.nwords(m)];
+        unit[0] = 1L;
+
+        long[] minpol = GF2Poly.minimalPolynomial(matrix, unit);
+
+        return (GF2Poly.degree(minpol) == m) && GF2Poly.isPrimitive(minpol);
+
+    }
+
+}
@@ -0,0 +1,349 @@
+package boolfun;
+
+import java.util.Arrays;
+
+/**
+ * Identifier of a rule (or of any binary string) of arbitrary length, given by
+ * the number whose binary expansion in LSBF order is the truth table of the
+ * rule. The bits are packed in 64-bit words as in BitVector, so that rules can
+ * be enumerated, compared and hashed without converting them to BigInteger:
+ * the decimal and hexadecimal conversions are only needed when the identifier
+ * is printed. Since increment() changes the identifier in place, a copy must
+ * be used when an identifier is stored as the key of a map.
+ *
+ * @author  Luca Mariot
+ * @version 1.0
+ */
+
+public class RuleId implements Comparable<RuleId> {
+
+    private static final long TEN9 = 1000000000L;
+
+    private long[] words;       //packed bits (LSBF order)
+    private int length;         //number of bits of the identifier
+
+    /**
+     * Class constructor, which builds the identifier 0 on length bits.
+     *
+     * @param length the number of bits of the identifier
+     */
+    public RuleId(int length) {
+
+        this.words = new long[BitVector.nwords(length)];
+        this.length = length;
+
+    }
+
+    /**
+     * Class constructor, which copies an array of packed words. The unused
+     * bits of the last word must be 0.
+     *
+     * @param words  the packed bits of the identifier (LSBF order)
+     * @param length the number of bits of the identifier
+     */
+    public RuleId(long[] words, int length) {
+
+        this.words = Arrays.copyOf(words, BitVector.nwords(length));
+        this.length = length;
+
+    }
+
+    /**
+     * Builds the identifier of a rule from its truth table.
+     *
+     * @param ttable the truth table of the rule (LSBF order)
+     * @return       the identifier of the rule
+     */
+    public static RuleId fromBool(boolean[] ttable) {
+
+        RuleId id = new RuleId(ttable.length);
+        BinTools.bool2Packed(ttable, id.words);
+
+        return id;
+
+    }
+
+    /**
+     * Parses a decimal number given as a sequence of ASCII digits, without
+     * building a String or a BigInteger. The digits are consumed in groups of
+     * 9, and each group is added to the number after multiplying it by the
+     * corresponding power of 10, on 32-bit limbs. The length of the returned
+     * identifier is the number of bits of the words needed to hold it.
+     *
+     * @param chars an array containing the digits
+     * @param from  the position of the first (most significant) digit
+     * @param to    the position following the last digit
+     * @return      the identifier with the given decimal representation
+     */
+    public static RuleId parseDec(byte[] chars, int from, int to) {
+
+        //log2(10) < 10/3 bits per digit
+        int nlimbs = (((to-from)*10)/3 + 63) / 32;
+        long[] limbs = new long[nlimbs];
+        int i = from;
+
+        while(i < to) {
+
+            int end = Math.min(i+9, to);
+            long group = 0;
+            long mul = 1;
+            for(; i<end; i++) {
+                group = group*10 + (chars[i]-'0');
+                mul *= 10;
+            }
+
+            long carry = group;
+            for(int k=0; k<nlimbs; k++) {
+                long cur = limbs[k]*mul + carry;
+                limbs[k] = cur & 0xFFFFFFFFL;
+                carry = cur >>> 32;
+            }
+
+        }
+
+        long[] words = new long[(nlimbs+1)/2];
+        for(int k=0; k<nlimbs; k++) {
+            words[k >>> 1] |= limbs[k] << ((k & 1) << 5);
+        }
+
+        return new RuleId(words, 64*words.length);
+
+    }
+
+    /**
+     * Returns a copy of the identifier, which can be stored while this one
+     * is incremented.
+     *
+     * @return a copy of the identifier
+     */
+    public RuleId copy() {
+
+        return new RuleId(words, length);
+
+    }
+
+    /**
+     * Adds 1 to the identifier, modulo 2^length.
+     *
+     * @return false if the identifier wrapped around to 0, true otherwise
+     */
+    public boolean increment() {
+
+        //Propagate the carry only through the words which overflow
+        for(int w=0; w<words.length; w++) {
+
+            words[w]++;
+            if(w == words.length-1 && (length & 63) != 0) {
+                words[w] &= BitVector.mask(length & 63);
+            }
+            if(words[w] != 0) {
+                return true;
+            }
+
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Returns len bits of the identifier starting from position from (at most
+     * 64), as a number.
+     *
+     * @param from the first bit
+     * @param len  the number of bits
+     * @return     bits from..from+len-1 of the identifier
+     */
+    public long getBits(int from, int len) {
+
+        return BitVector.getWord(words, from) & BitVector.mask(len);
+
+    }
+
+    public boolean get(int i) {
+        return ((words[i >>> 6] >>> i) & 1L) != 0;
+    }
+
+    /**
+     * Unpacks the identifier in a boolean array.
+     *
+     * @return the truth table of the rule (LSBF order)
+     */
+    public boolean[] toBool() {
+
+        return BinTools.packed2Bool(words, length);
+
+    }
+
+    /**
+     * Compares two identifiers as unsigned numbers. The length is not taken
+     * into account, so that e.g. an identifier parsed from a result file (see
+     * parseDec) equals the one built from the truth table of the same rule.
+     *
+     * @param other another identifier
+     * @return      a negative number, zero or a positive number if this
+     *              identifier is less, equal or greater than other
+     */
+    @Override
+    public int compareTo(RuleId other) {
+
+        int nw = Math.max(words.length, other.words.length);
+
+        for(int w=nw-1; w>=0; w--) {
+
+            long w1 = (w < words.length) ? words[w] : 0L;
+            long w2 = (w < other.words.length) ? other.words[w] : 0L;
+            int cmp = Long.compareUnsigned(w1, w2);
+            if(cmp != 0) {
+                return cmp;
+            }
+
+        }
+
+        return 0;
+
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+        if(this == obj) {
+            return true;
+        }
+        if(!(obj instanceof RuleId)) {
+            return false;
+        }
+
+        //Same value, ignoring the trailing zero words (see compareTo)
+        return compareTo((RuleId)obj) == 0;
+
+    }
+
+    @Override
+    public int hashCode() {
+
+        long hash = 0L;
+        int used = usedWords();
+        for(int w=0; w<used; w++) {
+            hash = (hash ^ words[w]) * 0x9e3779b97f4a7c15L;
+        }
+
+        return (int)(hash ^ (hash >>> 32));
+
+    }
+
+    /**
+     * Returns the number of words up to the last nonzero one.
+     *
+     * @return the number of significant words of the identifier
+     */
+    public int usedWords() {
+
+        int used = words.length;
+        while(used > 0 && words[used-1] == 0) {
+            used--;
+        }
+
+        return used;
+
+    }
+
+    /**
+     * Converts the identifier in a decimal string. The number is split in
+     * 32-bit limbs, which are repeatedly divided by 10^9 to get the decimal
+     * digits in groups of 9.
+     *
+     * @return the decimal representation of the identifier
+     */
+    @Override
+    public String toString() {
+
+        int nlimbs = 2*words.length;
+        long[] limbs = new long[nlimbs];
+        for(int w=0; w<words.length; w++) {
+            limbs[2*w] = words[w] & 0xFFFFFFFFL;
+            limbs[2*w+1] = words[w] >>> 32;
+        }
+
+        //Groups of 9 digits, least significant first
+        int[] groups = new int[(nlimbs*32)/29 + 1];
+        int ngroups = 0;
+        int top = nlimbs-1;
+        while(top >= 0 && limbs[top] == 0) {
+            top--;
+        }
+
+        while(top >= 0) {
+
+            long rem = 0;
+            for(int i=top; i>=0; i--) {
+                long cur = (rem << 32) | limbs[i];
+                limbs[i] = cur / TEN9;
+                rem = cur % TEN9;
+            }
+            groups[ngroups++] = (int)rem;
+            while(top >= 0 && limbs[top] == 0) {
+                top--;
+            }
+
+        }
+
+        if(ngroups == 0) {
+            return "0";
+        }
+
+        StringBuilder dec = new StringBuilder(9*ngroups);
+        dec.append(groups[ngroups-1]);
+        for(int g=ngroups-2; g>=0; g--) {
+            String digits = Integer.toString(groups[g]);
+            for(int k=digits.length(); k<9; k++) {
+                dec.append('0');
+            }
+            dec.append(digits);
+        }
+
+        return dec.toString();
+
+    }
+
+    /**
+     * Converts the identifier in a hexadecimal string (lowercase, without
+     * leading zeros).
+     *
+     * @return the hexadecimal representation of the identifier
+     */
+    public String toHexString() {
+
+        int top = words.length-1;
+        while(top > 0 && words[top] == 0) {
+            top--;
+        }
+        if(top < 0) {
+            return "0";
+        }
+
+        StringBuilder hex = new StringBuilder(16*(top+1));
+        hex.append(Long.toHexString(words[top]));
+        for(int w=top-1; w>=0; w--) {
+            String digits = Long.toHexString(words[w]);
+            for(int k=digits.length(); k<16; k++) {
+                hex.append('0');
+            }
+            hex.append(digits);
+        }
+
+        return hex.toString();
+
+    }
+
+    //Getters
+
+    public long[] getWords() {
+        return words;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+}
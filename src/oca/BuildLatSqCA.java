@@ -2,6 +2,7 @@ package oca;
 
 
 import boolfun.BinTools;
+import boolfun.GF2Poly;
 
 
 
@@ -62,6 +63,92 @@ public class BuildLatSqCA {
         
     }
     
+    /**
+     * Build a square matrix from a q-ary CA (see buildSqMatCA(OneDimCellAut,
+     * int)). The initial configurations of 2*blocklen cells are enumerated in
+     * increasing order by incrementing the cells as a q-ary counter, so that
+     * the two blocks A and B, read as q-ary numbers in LSBF order, are
+     * updated without converting them. The matrix has order q^blocklen and
+     * entries in 1..q^blocklen, as expected by the methods of
+     * LatinSquareTools.
+     * 
+     * @param ca an instance of a q-ary CA, with neighborhood blocklen+1
+     * @param blocklen the length of the blocks (q^(2*blocklen) must fit in an
+     *                 int).
+     * @return the square matrix generated by the CA.
+     */
+    public static int[][] buildSqMatCA(QaryCellAut ca, int blocklen) {
+        
+        int q = ca.getQ();
+        int n = (int)Math.pow(q, blocklen);
+        int[][] matrix = new int[n][n];
+        byte[] initconf = new byte[2*blocklen];
+        byte[] lastconf = new byte[2*blocklen-ca.getNbr()+1];
+        
+        for(int val2=0; val2<n; val2++) {
+            
+            for(int val1=0; val1<n; val1++) {
+                
+                ca.evolve(initconf, lastconf);
+                int val3 = 0;
+                for(int k=lastconf.length-1; k>=0; k--) {
+                    val3 = val3*q + lastconf[k];
+                }
+                matrix[val1][val2] = val3+1;
+                
+                //Increment the configuration as a q-ary counter
+                int k = 0;
+                while(k < initconf.length && ++initconf[k] == q) {
+                    initconf[k] = 0;
+                    k++;
+                }
+                
+            }
+            
+        }
+        
+        return matrix;
+        
+    }
+    
+    /**
+     * Check whether two q-ary CA generate orthogonal squares, by building
+     * both squares and checking them with LatinSquareTools.
+     * 
+     * @param ca1 the first q-ary CA
+     * @param ca2 the second q-ary CA
+     * @param blocklen the length of the blocks
+     * @return true if the two squares are orthogonal
+     */
+    public static boolean checkOrthogCA(QaryCellAut ca1, QaryCellAut ca2,
+            int blocklen) {
+        
+        int[][] matrix1 = buildSqMatCA(ca1, blocklen);
+        int[][] matrix2 = buildSqMatCA(ca2, blocklen);
+        
+        return LatinSquareTools.checkOrthogLatSquare(matrix1, matrix2);
+        
+    }
+    
+    /**
+     * Check whether two linear bipermutive CA generate orthogonal squares,
+     * without building them: by the characterization of linear OCA, this
+     * happens if and only if the polynomials associated to the two local
+     * rules are coprime (equivalently, if their Sylvester matrix is
+     * invertible). The check is a GCD over GF(2), that is O(n^2) bit
+     * operations instead of the O(4^n) of checkOrthogCA.
+     * 
+     * @param pol1 the coefficients of the first polynomial, from X^0 upwards
+     * @param pol2 the coefficients of the second polynomial, from X^0 upwards
+     * @return true if the two linear CA are orthogonal
+     */
+    public static boolean checkOrthogLinCA(boolean[] pol1, boolean[] pol2) {
+        
+        return GF2Poly.areCoprime(GF2Poly.fromBool(pol1),
+                GF2Poly.fromBool(pol2));
+        
+    }
+    
     public static void main(String[] args)  {
         
         boolean[] rule = BinTools.dec2BinMod(42330, 16);
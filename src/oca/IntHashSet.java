@@ -0,0 +1,152 @@
+package oca;
+
+import java.util.Arrays;
+
+
+
+/**
+ * Set of primitive integers based on open addressing with linear probing.
+ * The table is kept at most half full, and its length is a power of 2.
+ * 
+ * @author Luca Mariot
+ */
+
+public class IntHashSet {
+    
+    private static final int FREE = Integer.MIN_VALUE;  //marks empty slots
+    
+    private int[] keys;
+    private int size;
+    private boolean hasFree;    //whether the key FREE itself is in the set
+    
+    public IntHashSet() {
+        this(16);
+    }
+    
+    public IntHashSet(int expected) {
+        
+        int cap = 2;
+        while(cap < 2*expected) {
+            cap <<= 1;
+        }
+        keys = new int[cap];
+        Arrays.fill(keys, FREE);
+        
+    }
+    
+    /**
+     * Scramble a key and reduce it to a slot of a table of a given length.
+     * 
+     * @param key   the key to hash
+     * @param mask  the length of the table minus 1
+     * @return      the initial slot of the key
+     */
+    static int slot(int key, int mask) {
+        
+        int h = key * 0x9E3779B9;
+        
+        return (h ^ (h >>> 16)) & mask;
+        
+    }
+    
+    /**
+     * Add a key to the set.
+     * 
+     * @param key the key to add
+     * @return    true if the key was not already in the set
+     */
+    public boolean add(int key) {
+        
+        if(key == FREE) {
+            boolean added = !hasFree;
+            hasFree = true;
+            if(added) {
+                size++;
+            }
+            return added;
+        }
+        
+        int mask = keys.length-1;
+        int pos = slot(key, mask);
+        while(keys[pos] != FREE) {
+            if(keys[pos] == key) {
+                return false;
+            }
+            pos = (pos+1) & mask;
+        }
+        
+        keys[pos] = key;
+        size++;
+        if(2*size > keys.length) {
+            rehash();
+        }
+        
+        return true;
+        
+    }
+    
+    /**
+     * Check whether a key belongs to the set.
+     * 
+     * @param key the key to look for
+     * @return    true if key is in the set, false otherwise
+     */
+    public boolean contains(int key) {
+        
+        if(key == FREE) {
+            return hasFree;
+        }
+        
+        int mask = keys.length-1;
+        int pos = slot(key, mask);
+        while(keys[pos] != FREE) {
+            if(keys[pos] == key) {
+                return true;
+            }
+            pos = (pos+1) & mask;
+        }
+        
+        return false;
+        
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Remove all keys, keeping the allocated table.
+     */
+    public void clear() {
+        
+        Arrays.fill(keys, FREE);
+        size = 0;
+        hasFree = false;
+        
+    }
+    
+    /**
+     * Double the length of the table and reinsert all keys.
+     */
+    private void rehash() {
+        
+        int[] oldkeys = keys;
+        keys = new int[2*oldkeys.length];
+        Arrays.fill(keys, FREE);
+        int mask = keys.length-1;
+        
+        for(int i=0; i<oldkeys.length; i++) {
+            
+            if(oldkeys[i] != FREE) {
+                int pos = slot(oldkeys[i], mask);
+                while(keys[pos] != FREE) {
+                    pos = (pos+1) & mask;
+                }
+                keys[pos] = oldkeys[i];
+            }
+            
+        }
+        
+    }
+    
+}
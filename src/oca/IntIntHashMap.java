@@ -0,0 +1,194 @@
+package oca;
+
+import java.util.Arrays;
+
+/**
+ * Map from primitive integers to primitive integers based on open addressing
+ * with linear probing (see IntHashSet). Missing keys are mapped to a default
+ * value chosen by the caller, which makes the map suitable for counters and
+ * histograms (e.g. the number of cycles of each length).
+ * 
+ * @author Luca Mariot
+ */
+
+public class IntIntHashMap {
+    
+    private static final int FREE = Integer.MIN_VALUE;  //marks empty slots
+    
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private boolean hasFree;    //whether the key FREE itself is in the map
+    private int freeValue;      //value associated to the key FREE
+    
+    public IntIntHashMap() {
+        this(16);
+    }
+    
+    public IntIntHashMap(int expected) {
+        
+        int cap = 2;
+        while(cap < 2*expected) {
+            cap <<= 1;
+        }
+        keys = new int[cap];
+        values = new int[cap];
+        Arrays.fill(keys, FREE);
+        
+    }
+    
+    /**
+     * Find the slot of a key, or the free slot where it should be inserted.
+     * 
+     * @param key a key different from FREE
+     * @return    the slot of the key
+     */
+    private int find(int key) {
+        
+        int mask = keys.length-1;
+        int pos = IntHashSet.slot(key, mask);
+        while(keys[pos] != FREE && keys[pos] != key) {
+            pos = (pos+1) & mask;
+        }
+        
+        return pos;
+        
+    }
+    
+    /**
+     * Return the value associated to a key.
+     * 
+     * @param key  the key to look for
+     * @param def  the value to return if key is not in the map
+     * @return     the value associated to key, or def
+     */
+    public int get(int key, int def) {
+        
+        if(key == FREE) {
+            return hasFree ? freeValue : def;
+        }
+        
+        int pos = find(key);
+        
+        return (keys[pos] == FREE) ? def : values[pos];
+        
+    }
+    
+    public boolean containsKey(int key) {
+        
+        if(key == FREE) {
+            return hasFree;
+        }
+        
+        return keys[find(key)] != FREE;
+        
+    }
+    
+    /**
+     * Associate a value to a key, replacing the previous one.
+     * 
+     * @param key   the key
+     * @param value the value to associate to key
+     */
+    public void put(int key, int value) {
+        
+        if(key == FREE) {
+            if(!hasFree) {
+                hasFree = true;
+                size++;
+            }
+            freeValue = value;
+            return;
+        }
+        
+        int pos = find(key);
+        values[pos] = value;
+        if(keys[pos] == FREE) {
+            keys[pos] = key;
+            size++;
+            if(2*size > keys.length) {
+                rehash();
+            }
+        }
+        
+    }
+    
+    /**
+     * Add an amount to the value associated to a key (missing keys are
+     * considered associated to 0).
+     * 
+     * @param key    the key
+     * @param amount the amount to add
+     * @return       the new value associated to key
+     */
+    public int addTo(int key, int amount) {
+        
+        int value = get(key, 0) + amount;
+        put(key, value);
+        
+        return value;
+        
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Return the keys of the map in ascending order.
+     * 
+     * @return a sorted array containing all keys of the map
+     */
+    public int[] keys() {
+        
+        int[] toRet = new int[size];
+        int k = 0;
+        if(hasFree) {
+            toRet[k++] = FREE;
+        }
+        for(int i=0; i<keys.length; i++) {
+            if(keys[i] != FREE) {
+                toRet[k++] = keys[i];
+            }
+        }
+        Arrays.sort(toRet);
+        
+        return toRet;
+        
+    }
+    
+    /**
+     * Remove all entries, keeping the allocated tables.
+     */
+    public void clear() {
+        
+        Arrays.fill(keys, FREE);
+        size = 0;
+        hasFree = false;
+        
+    }
+    
+    /**
+     * Double the length of the tables and reinsert all entries.
+     */
+    private void rehash() {
+        
+        int[] oldkeys = keys;
+        int[] oldvalues = values;
+        keys = new int[2*oldkeys.length];
+        values = new int[2*oldkeys.length];
+        Arrays.fill(keys, FREE);
+        
+        for(int i=0; i<oldkeys.length; i++) {
+            
+            if(oldkeys[i] != FREE) {
+                int pos = find(oldkeys[i]);
+                keys[pos] = oldkeys[i];
+                values[pos] = oldvalues[i];
+            }
+            
+        }
+        
+    }
+    
+}
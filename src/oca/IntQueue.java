@@ -0,0 +1,110 @@
+package oca;
+
+
+
+/**
+ * Growable FIFO queue of primitive integers, backed by a circular array. The
+ * elements can also be read by position (0 is the head of the queue), so that
+ * the queue can be used as a reusable buffer, e.g. for the pairs of a cycle.
+ * 
+ * @author Luca Mariot
+ */
+
+public class IntQueue {
+    
+    private int[] elems;    //circular buffer (length is a power of 2)
+    private int head;       //position of the first element
+    private int size;       //number of elements in the queue
+    
+    public IntQueue() {
+        this(16);
+    }
+    
+    public IntQueue(int capacity) {
+        
+        int cap = 1;
+        while(cap < capacity) {
+            cap <<= 1;
+        }
+        elems = new int[cap];
+        
+    }
+    
+    /**
+     * Append an element at the tail of the queue.
+     * 
+     * @param val the element to append
+     */
+    public void add(int val) {
+        
+        if(size == elems.length) {
+            
+            //Double the buffer, unrolling the circular array
+            int[] newelems = new int[2*elems.length];
+            for(int i=0; i<size; i++) {
+                newelems[i] = elems[(head+i) & (elems.length-1)];
+            }
+            elems = newelems;
+            head = 0;
+            
+        }
+        
+        elems[(head+size) & (elems.length-1)] = val;
+        size++;
+        
+    }
+    
+    /**
+     * Remove and return the element at the head of the queue.
+     * 
+     * @return the first element of the queue
+     */
+    public int poll() {
+        
+        if(size == 0) {
+            throw new IllegalStateException("Empty queue");
+        }
+        
+        int val = elems[head];
+        head = (head+1) & (elems.length-1);
+        size--;
+        
+        return val;
+        
+    }
+    
+    /**
+     * Return the element in a given position, starting from the head.
+     * 
+     * @param i the position of the element (0 <= i < size())
+     * @return  the element in position i
+     */
+    public int get(int i) {
+        
+        if(i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: "+i+", size: "+size);
+        }
+        
+        return elems[(head+i) & (elems.length-1)];
+        
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Remove all elements, keeping the allocated buffer.
+     */
+    public void clear() {
+        
+        head = 0;
+        size = 0;
+        
+    }
+    
+}
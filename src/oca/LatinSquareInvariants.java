@@ -0,0 +1,597 @@
+package oca;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Vector;
+
+/**
+ * Invariants of Latin squares under isotopy (independent permutations of rows,
+ * columns and symbols) and conjugacy (permutations of the roles of rows,
+ * columns and symbols). Two squares with different fingerprints cannot be
+ * equivalent, so the fingerprints can be used to bucket squares in candidate
+ * equivalence classes before running more expensive analyses. Squares with the
+ * same fingerprint are only candidates: the invariants are necessary, but not
+ * sufficient, conditions for equivalence, which is confirmed by an explicit
+ * isotopism search (isIsotopic, isParatopic, equivalenceClasses). As in
+ * LatinSquareTools, the symbols of an n x n square are assumed to range over
+ * 1..n.
+ *
+ * @author Luca Mariot
+ */
+
+public class LatinSquareInvariants {
+
+    /**
+     * Compute the cycle type of the permutation mapping the i-th entry of
+     * line1 to the i-th entry of line2, as an array of counts where position
+     * k holds the number of cycles of length k.
+     *
+     * @param line1 first line of a Latin square (a permutation of 1..n)
+     * @param line2 second line of a Latin square (a permutation of 1..n)
+     * @param perm  scratch array of length n
+     * @param mark  scratch array of length n
+     * @return      the cycle type of the permutation line1 -> line2
+     */
+    public static int[] cycleType(int[] line1, int[] line2, int[] perm,
+            boolean[] mark) {
+
+        int n = line1.length;
+        int[] ctype = new int[n+1];
+
+        for(int i=0; i<n; i++) {
+            perm[line1[i]-1] = line2[i]-1;
+            mark[i] = false;
+        }
+
+        //Follow each cycle from its smallest unmarked element
+        for(int i=0; i<n; i++) {
+
+            if(!mark[i]) {
+
+                int len = 0;
+                int j = i;
+                while(!mark[j]) {
+                    mark[j] = true;
+                    j = perm[j];
+                    len++;
+                }
+                ctype[len]++;
+
+            }
+
+        }
+
+        return ctype;
+
+    }
+
+    /**
+     * Compute the row cycle structure of a Latin square, that is the multiset
+     * of the cycle types of the permutations between all unordered pairs of
+     * rows. Each cycle type is encoded as a 64-bit hash, and the returned
+     * array is sorted, so that two squares with the same row cycle structure
+     * give equal arrays. The row cycle structure is invariant under isotopy.
+     *
+     * @param square a Latin square of order n
+     * @return       the sorted hashes of the cycle types of all row pairs
+     */
+    public static long[] rowCycleStructure(int[][] square) {
+
+        int n = square.length;
+        long[] codes = new long[n*(n-1)/2];
+        int[] perm = new int[n];
+        boolean[] mark = new boolean[n];
+        int k = 0;
+
+        for(int r1=0; r1<n; r1++) {
+
+            for(int r2=r1+1; r2<n; r2++) {
+
+                int[] ctype = cycleType(square[r1], square[r2], perm, mark);
+                codes[k] = hashCounts(ctype);
+                k++;
+
+            }
+
+        }
+
+        Arrays.sort(codes);
+
+        return codes;
+
+    }
+
+    /**
+     * Count the intercalates (2x2 Latin subsquares) of a Latin square. Each
+     * intercalate lying on rows r1 and r2 corresponds to a 2-cycle of the
+     * permutation between the two rows, hence the count is obtained from the
+     * row cycle types. The number of intercalates is invariant under both
+     * isotopy and conjugacy.
+     *
+     * @param square a Latin square of order n
+     * @return       the number of intercalates in square
+     */
+    public static int countIntercalates(int[][] square) {
+
+        int n = square.length;
+        int[] perm = new int[n];
+        boolean[] mark = new boolean[n];
+        int count = 0;
+
+        for(int r1=0; r1<n; r1++) {
+
+            for(int r2=r1+1; r2<n; r2++) {
+
+                count += cycleType(square[r1], square[r2], perm, mark)[2];
+
+            }
+
+        }
+
+        return count;
+
+    }
+
+    /**
+     * Compute the transpose of a square, exchanging the roles of rows and
+     * columns.
+     *
+     * @param square a Latin square of order n
+     * @return       the transpose of square
+     */
+    public static int[][] transpose(int[][] square) {
+
+        int n = square.length;
+        int[][] trans = new int[n][n];
+
+        for(int i=0; i<n; i++) {
+            for(int j=0; j<n; j++) {
+                trans[j][i] = square[i][j];
+            }
+        }
+
+        return trans;
+
+    }
+
+    /**
+     * Compute the conjugate of a square where the roles of rows and symbols
+     * are exchanged: the entry in row s and column j is the row where symbol s
+     * appears in column j of the original square.
+     *
+     * @param square a Latin square of order n
+     * @return       the (symbol, column, row) conjugate of square
+     */
+    public static int[][] symbolConjugate(int[][] square) {
+
+        int n = square.length;
+        int[][] conj = new int[n][n];
+
+        for(int i=0; i<n; i++) {
+            for(int j=0; j<n; j++) {
+                conj[square[i][j]-1][j] = i+1;
+            }
+        }
+
+        return conj;
+
+    }
+
+    /**
+     * Compute a fingerprint of a Latin square which is invariant under isotopy
+     * and conjugacy. The fingerprint combines the row, column and symbol cycle
+     * structures (hashed separately and then sorted, so that permuting the
+     * roles of rows, columns and symbols does not change the result) with the
+     * number of intercalates.
+     *
+     * @param square a Latin square of order n
+     * @return       a 64-bit invariant fingerprint of square
+     */
+    public static long fingerprint(int[][] square) {
+
+        long[] parts = new long[3];
+        parts[0] = hashCodes(rowCycleStructure(square));
+        parts[1] = hashCodes(rowCycleStructure(transpose(square)));
+        parts[2] = hashCodes(rowCycleStructure(symbolConjugate(square)));
+        Arrays.sort(parts);
+
+        long hash = mix(square.length);
+        for(int i=0; i<parts.length; i++) {
+            hash = mix(hash ^ parts[i]);
+        }
+        hash = mix(hash ^ countIntercalates(square));
+
+        return hash;
+
+    }
+
+    /**
+     * Partition a list of Latin squares in candidate equivalence classes,
+     * according to their fingerprints. Squares in different buckets are
+     * certainly inequivalent, so any result which only depends on the
+     * isotopy/conjugacy class needs to be computed once per bucket (after
+     * checking equivalence among the members of the bucket with
+     * equivalenceClasses, if exactness is required).
+     *
+     * @param squares a list of Latin squares
+     * @return        a map from each fingerprint to the positions in squares
+     *                of the squares having that fingerprint
+     */
+    public static HashMap<Long, Vector<Integer>> bucketSquares(
+            Vector<int[][]> squares) {
+
+        HashMap<Long, Vector<Integer>> buckets =
+                new HashMap<Long, Vector<Integer>>();
+
+        for(int i=0; i<squares.size(); i++) {
+
+            Long key = fingerprint(squares.elementAt(i));
+            Vector<Integer> bucket = buckets.get(key);
+
+            if(bucket == null) {
+                bucket = new Vector<Integer>();
+                buckets.put(key, bucket);
+            }
+
+            bucket.add(i);
+
+        }
+
+        return buckets;
+
+    }
+
+    /**
+     * Split a bucket of squares with the same fingerprint (see bucketSquares)
+     * in the actual equivalence classes under isotopy and conjugacy. Each
+     * square is compared with a representative of the classes found so far
+     * by isParatopic.
+     *
+     * @param squares a list of Latin squares
+     * @param bucket  positions in squares of some squares to be classified
+     * @return        the equivalence classes of the squares in bucket, as
+     *                lists of positions in squares
+     */
+    public static Vector<Vector<Integer>> equivalenceClasses(
+            Vector<int[][]> squares, Vector<Integer> bucket) {
+
+        Vector<Vector<Integer>> classes = new Vector<Vector<Integer>>();
+
+        for(int i=0; i<bucket.size(); i++) {
+
+            int[][] square = squares.elementAt(bucket.elementAt(i));
+            boolean found = false;
+            for(int c=0; c<classes.size() && !found; c++) {
+
+                int rep = classes.elementAt(c).elementAt(0);
+                if(isParatopic(squares.elementAt(rep), square)) {
+                    classes.elementAt(c).add(bucket.elementAt(i));
+                    found = true;
+                }
+
+            }
+
+            if(!found) {
+                Vector<Integer> newClass = new Vector<Integer>();
+                newClass.add(bucket.elementAt(i));
+                classes.add(newClass);
+            }
+
+        }
+
+        return classes;
+
+    }
+
+    /**
+     * Check whether two Latin squares are paratopic, i.e. whether the second
+     * one is isotopic to one of the six conjugates of the first one (obtained
+     * by composing transpose and symbolConjugate).
+     *
+     * @param square1 a Latin square of order n
+     * @param square2 a Latin square of order n
+     * @return        true if square1 and square2 are paratopic
+     */
+    public static boolean isParatopic(int[][] square1, int[][] square2) {
+
+        int[][] trans = transpose(square1);
+        int[][] conj = symbolConjugate(square1);
+        int[][][] conjugates = {square1, trans, conj, transpose(conj),
+            symbolConjugate(trans), transpose(symbolConjugate(trans))};
+
+        for(int k=0; k<conjugates.length; k++) {
+            if(isIsotopic(conjugates[k], square2)) {
+                return true;
+            }
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Check whether two Latin squares are isotopic, i.e. whether there are
+     * permutations alpha, beta, gamma of the rows, columns and symbols such
+     * that square2[alpha(i)][beta(j)] = gamma(square1[i][j]) for all i, j.
+     * The isotopism is searched by backtracking on the images of the rows and
+     * columns: after each choice, all the values of alpha, beta and gamma
+     * forced by the known ones are propagated, and the branch is abandoned
+     * at the first contradiction. The row, column and symbol cycle
+     * structures are compared first, so that most inequivalent squares are
+     * rejected without searching; the search itself can take exponential
+     * time on inequivalent squares with many autotopisms (e.g. the Cayley
+     * tables of non-isomorphic groups of order 2^k).
+     *
+     * @param square1 a Latin square of order n
+     * @param square2 a Latin square of order n
+     * @return        true if square1 and square2 are isotopic
+     */
+    public static boolean isIsotopic(int[][] square1, int[][] square2) {
+
+        int n = square1.length;
+        if(square2.length != n) {
+            return false;
+        }
+
+        //The cycle structures of rows, columns and symbols are invariant
+        //under isotopy, each one keeping its role
+        if(!Arrays.equals(rowCycleStructure(square1),
+                rowCycleStructure(square2))
+            || !Arrays.equals(rowCycleStructure(transpose(square1)),
+                rowCycleStructure(transpose(square2)))
+            || !Arrays.equals(rowCycleStructure(symbolConjugate(square1)),
+                rowCycleStructure(symbolConjugate(square2)))) {
+            return false;
+        }
+
+        //maps[0..2] = alpha, beta, gamma, maps[3..5] = their inverses
+        int[][] maps = new int[6][n];
+        for(int k=0; k<maps.length; k++) {
+            Arrays.fill(maps[k], -1);
+        }
+
+        return searchIsotopism(new Isotopy(square1, square2), maps);
+
+    }
+
+    /**
+     * Recursive step of isIsotopic: propagate the partial isotopism in maps,
+     * then branch on the image of an unassigned column or row.
+     */
+    private static boolean searchIsotopism(Isotopy iso, int[][] maps) {
+
+        if(!iso.propagate(maps)) {
+            return false;
+        }
+
+        //Branch on the first column if no column is mapped yet (so that the
+        //rows and columns can propagate), and then on the rows
+        int n = iso.n;
+        int kind = -1;
+        int pos = -1;
+        if(maps[1][0] == -1) {
+            kind = 1;
+            pos = 0;
+        }
+        for(int i=0; i<n && pos < 0; i++) {
+            if(maps[0][i] == -1) {
+                kind = 0;
+                pos = i;
+            }
+        }
+        for(int j=0; j<n && pos < 0; j++) {
+            if(maps[1][j] == -1) {
+                kind = 1;
+                pos = j;
+            }
+        }
+        if(pos < 0) {
+            return true;
+        }
+
+        for(int v=0; v<n; v++) {
+
+            if(maps[kind+3][v] != -1) {
+                continue;
+            }
+            int[][] branch = new int[maps.length][];
+            for(int k=0; k<maps.length; k++) {
+                branch[k] = maps[k].clone();
+            }
+            branch[kind][pos] = v;
+            branch[kind+3][v] = pos;
+            if(searchIsotopism(iso, branch)) {
+                return true;
+            }
+
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Hash an array of counts (e.g. a cycle type) in a 64-bit value.
+     *
+     * @param counts an array of integers
+     * @return       a 64-bit hash of counts
+     */
+    private static long hashCounts(int[] counts) {
+
+        long hash = mix(counts.length);
+        for(int i=0; i<counts.length; i++) {
+            hash = mix(hash ^ (((long)i << 32) | counts[i]));
+        }
+
+        return hash;
+
+    }
+
+    /**
+     * Hash a sorted array of 64-bit codes in a single 64-bit value.
+     *
+     * @param codes a sorted array of codes
+     * @return      a 64-bit hash of codes
+     */
+    private static long hashCodes(long[] codes) {
+
+        long hash = mix(codes.length);
+        for(int i=0; i<codes.length; i++) {
+            hash = mix(hash ^ codes[i]);
+        }
+
+        return hash;
+
+    }
+
+    /**
+     * 64-bit finalizer of the SplitMix64 generator, used to scramble the
+     * intermediate values of the hashes.
+     *
+     * @param z a 64-bit value
+     * @return  the scrambled value
+     */
+    private static long mix(long z) {
+
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+
+        return z ^ (z >>> 31);
+
+    }
+
+    /**
+     * Position tables of the two squares of an isotopism search, with the
+     * propagation of the partial maps (symbols are 0-based here).
+     */
+    private static class Isotopy {
+
+        private int n;
+        private int[][] sq1;
+        private int[][] sq2;
+        private int[][] col1;   //col1[i][x] = column of symbol x in row i
+        private int[][] row1;   //row1[j][x] = row of symbol x in column j
+        private int[][] col2;
+        private int[][] row2;
+
+        private Isotopy(int[][] square1, int[][] square2) {
+
+            n = square1.length;
+            sq1 = square1;
+            sq2 = square2;
+            col1 = new int[n][n];
+            row1 = new int[n][n];
+            col2 = new int[n][n];
+            row2 = new int[n][n];
+
+            for(int i=0; i<n; i++) {
+                for(int j=0; j<n; j++) {
+                    col1[i][square1[i][j]-1] = j;
+                    row1[j][square1[i][j]-1] = i;
+                    col2[i][square2[i][j]-1] = j;
+                    row2[j][square2[i][j]-1] = i;
+                }
+            }
+
+        }
+
+        /**
+         * Extend the partial maps (alpha, beta, gamma and their inverses) with
+         * all the values forced by the known ones, until a fixed point.
+         *
+         * @return false if the maps are contradictory
+         */
+        private boolean propagate(int[][] maps) {
+
+            int[] alpha = maps[0];
+            int[] beta = maps[1];
+            int[] gamma = maps[2];
+            boolean changed = true;
+
+            while(changed) {
+
+                changed = false;
+                for(int i=0; i<n; i++) {
+
+                    if(alpha[i] == -1) {
+                        continue;
+                    }
+                    for(int j=0; j<n; j++) {
+
+                        //A mapped cell fixes the image of its symbol
+                        if(beta[j] != -1) {
+                            int res = assign(maps, 2, sq1[i][j]-1,
+                                    sq2[alpha[i]][beta[j]]-1);
+                            if(res < 0) {
+                                return false;
+                            }
+                            changed |= (res > 0);
+                        }
+
+                    }
+                    for(int x=0; x<n; x++) {
+
+                        //A mapped row and symbol fix the image of a column
+                        if(gamma[x] != -1) {
+                            int res = assign(maps, 1, col1[i][x],
+                                    col2[alpha[i]][gamma[x]]);
+                            if(res < 0) {
+                                return false;
+                            }
+                            changed |= (res > 0);
+                        }
+
+                    }
+
+                }
+                for(int j=0; j<n; j++) {
+
+                    if(beta[j] == -1) {
+                        continue;
+                    }
+                    for(int x=0; x<n; x++) {
+
+                        //A mapped column and symbol fix the image of a row
+                        if(gamma[x] != -1) {
+                            int res = assign(maps, 0, row1[j][x],
+                                    row2[beta[j]][gamma[x]]);
+                            if(res < 0) {
+                                return false;
+                            }
+                            changed |= (res > 0);
+                        }
+
+                    }
+
+                }
+
+            }
+
+            return true;
+
+        }
+
+        /**
+         * Set maps[kind][pos] = val.
+         *
+         * @return 1 if the value is new, 0 if it was already set, -1 if it
+         *         contradicts the map or its inverse
+         */
+        private static int assign(int[][] maps, int kind, int pos, int val) {
+
+            if(maps[kind][pos] == val) {
+                return 0;
+            }
+            if(maps[kind][pos] != -1 || maps[kind+3][val] != -1) {
+                return -1;
+            }
+            maps[kind][pos] = val;
+            maps[kind+3][val] = pos;
+
+            return 1;
+
+        }
+
+    }
+
+}
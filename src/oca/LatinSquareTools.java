@@ -121,9 +121,8 @@ public class LatinSquareTools {
         
         for(int i=0; i<table1.length; i++) {
             
-            boolean[] curpair = {table1[i], table2[i]};
-            int numpair = BinTools.bin2Dec(curpair);
-            
+            //Index of the pair in LSBF order: table1 is the low bit
+            int numpair = (table1[i] ? 1 : 0) | (table2[i] ? 2 : 0);
             card[numpair]++;
             
         }
@@ -132,6 +131,116 @@ public class LatinSquareTools {
         
     }
     
+    /**
+     * Compute the cardinality of each pair (0,0), (1,0), (0,1), (1,1) by
+     * juxtaposing two truth tables packed in 64-bit words (see
+     * BinTools.bool2Packed). The counts are computed word by word with
+     * AND/ANDNOT and population counts.
+     * 
+     * @param table1 packed truth table of the first function
+     * @param table2 packed truth table of the second function
+     * @param length length of the truth tables (the unused bits of the last
+     *               word must be 0)
+     * @return       the cardinalities of the pairs, in the same order used by
+     *               the boolean[] version of the method
+     */
+    public static int[] checkPairsTable(long[] table1, long[] table2,
+            int length) {
+        
+        int[] card = new int[4];
+        
+        for(int w=0; w<table1.length; w++) {
+            
+            long a = table1[w];
+            long b = table2[w];
+            card[1] += Long.bitCount(a & ~b);
+            card[2] += Long.bitCount(~a & b);
+            card[3] += Long.bitCount(a & b);
+            
+        }
+        
+        card[0] = length - card[1] - card[2] - card[3];
+        
+        return card;
+        
+    }
+    
+    /**
+     * Compute the joint distribution of k boolean functions, that is the
+     * cardinality of each k-tuple of output values obtained by juxtaposing
+     * their packed truth tables. The j-th function gives the j-th bit (LSBF)
+     * of the index of a tuple, so that for k=2 the result coincides with
+     * checkPairsTable. For each word, the valid positions are split
+     * recursively by the tables of the functions, and the 2^k resulting masks
+     * are counted with population counts. For k>2, a non-uniform joint
+     * table does not rule out mutual orthogonality (see isBalancedTable).
+     * 
+     * @param tables packed truth tables of the k functions
+     * @param length length of the truth tables
+     * @return       an array of 2^k cardinalities
+     */
+    public static int[] checkJointTable(long[][] tables, int length) {
+        
+        int k = tables.length;
+        int[] card = new int[1 << k];
+        long[] masks = new long[1 << k];
+        
+        for(int w=0; w<tables[0].length; w++) {
+            
+            //Mask of the valid positions in the current word
+            int valid = Math.min(64, length - (w << 6));
+            masks[0] = (valid == 64) ? -1L : (1L << valid) - 1;
+            
+            //After processing j functions, masks[t] holds the positions whose
+            //first j output values are the binary expansion of t
+            for(int j=0; j<k; j++) {
+                
+                long t = tables[j][w];
+                int half = 1 << j;
+                for(int m=0; m<half; m++) {
+                    masks[m+half] = masks[m] & t;
+                    masks[m] &= ~t;
+                }
+                
+            }
+            
+            for(int m=0; m<card.length; m++) {
+                card[m] += Long.bitCount(masks[m]);
+            }
+            
+        }
+        
+        return card;
+        
+    }
+    
+    /**
+     * Check whether all the cardinalities computed by checkPairsTable or
+     * checkJointTable are equal. If the local rules of two CA are not
+     * pairwise balanced (table of checkPairsTable), then the corresponding
+     * Latin squares cannot be orthogonal, so the check can be used as a cheap
+     * filter before building the squares. Joint balance of k>2 rules
+     * (checkJointTable) is instead not a necessary condition for a set of
+     * mutually orthogonal Latin squares, which only requires each pair to be
+     * orthogonal: it must not be used as a filter for MOLS.
+     * 
+     * @param card the cardinalities of the tuples of output values
+     * @return     true if card is uniform, false otherwise
+     */
+    public static boolean isBalancedTable(int[] card) {
+        
+        for(int i=1; i<card.length; i++) {
+            
+            if(card[i] != card[0]) {
+                return false;
+            }
+            
+        }
+        
+        return true;
+        
+    }
+    
     /**
      * Given two (orthogonal) Latin squares and a pair of coordinates row/col,
      * return the superimposed entry at those coordinates
@@ -190,7 +299,10 @@ public class LatinSquareTools {
      * @param val
      * @param vect
      * @return 
+     * @deprecated the cycle decomposition no longer scans a vector of pairs,
+     *             but marks them by their codes (see OLSEntry.encode)
      */
+    @Deprecated
     public static int positionOf(OLSEntry val, Vector<OLSEntry> vect) {
         
         for(int i=0; i<vect.capacity(); i++) {
@@ -208,6 +320,51 @@ public class LatinSquareTools {
         
     }
     
+    /**
+     * Follow the cycle of the OLS iteration which contains a given pair,
+     * marking its pairs as visited and appending their codes (see
+     * OLSEntry.encode, entries over 1..n) to a buffer. The pairs are indexed
+     * in row-major order over 0..n^2-1.
+     * 
+     * @param square1   first latin square
+     * @param square2   second latin square
+     * @param start     index of the starting pair
+     * @param visited   marks of the pairs already visited
+     * @param cycle     buffer where the codes of the cycle are appended
+     */
+    private static void walkOLSCycle(int[][] square1, int[][] square2,
+            int start, boolean[] visited, IntQueue cycle) {
+        
+        int n = square1.length;
+        int row = start / n;
+        int col = start % n;
+        int cur = start;
+        
+        do {
+            
+            visited[cur] = true;
+            cycle.add(OLSEntry.encode(row+1, col+1));
+            
+            //Iterate the OLS: the entries are over 1..n, but the coordinates
+            //of the arrays need to be over 0..n-1
+            int newrow = square1[row][col]-1;
+            int newcol = square2[row][col]-1;
+            row = newrow;
+            col = newcol;
+            cur = row*n + col;
+            
+            //A visited pair different from the starting one means that the
+            //iteration is not a permutation of the pairs
+            if(visited[cur] && cur != start) {
+                throw new IllegalArgumentException("The squares are not "
+                        + "orthogonal: pair ("+(row+1)+","+(col+1)+") "
+                        + "reached twice");
+            }
+            
+        } while(cur != start);
+        
+    }
+    
     /**
      * Print the cycle decomposition obtained by iteration of two OLS
      * 
@@ -217,74 +374,104 @@ public class LatinSquareTools {
     public static void decomposeOLSCycles(int[][] square1, int[][] square2) {
         
         int n = square1.length;
-        Vector<OLSEntry> pairs = new Vector<OLSEntry>();
+        boolean[] visited = new boolean[n*n];
+        IntQueue curcycle = new IntQueue(n*n);
         
-        //fill the initial list of ordered pairs
-        for(int i=1; i<=n; i++) {
+        //Each cycle starts from the first pair not yet visited, in row-major
+        //order
+        for(int start=0; start<n*n; start++) {
             
-            for(int j=1; j<=n; j++) {
-                
-                OLSEntry curpair = new OLSEntry(i,j);
-                pairs.add(curpair);
-                
-            }
-            
-        }
-        
-        pairs.trimToSize();
-        
-        //Until the list of pairs is not empty, build the cycle decomposition
-        while(pairs.capacity() != 0) {
-            
-            //Initialize the current cycle with the first element taken from
-            //the list of remaining entries in pairs
-            OLSEntry startentry = pairs.elementAt(0);
-            OLSEntry newentry = null;
-            int[] coord = new int[2];
-            //the entries are over 1..n, but the coordinates for the arrays in need to be over 0..n-1
-            coord[0] = startentry.getEntry()[0]-1;
-            coord[1] = startentry.getEntry()[1]-1;
-            pairs.removeElementAt(0);
-            pairs.trimToSize();
-            Vector<OLSEntry> curcycle = new Vector<OLSEntry>();
-            curcycle.add(startentry);
-            
-            do {
+            if(!visited[start]) {
                 
-                //Iterate the OLS
-                newentry = new OLSEntry(evaluateOLS(square1, square2,
-                        coord[0], coord[1]));
+                curcycle.clear();
+                walkOLSCycle(square1, square2, start, visited, curcycle);
                 
-                
-                //Condition to continue the iteration: the new entry differs
-                //from the starting one
-                if((newentry.getEntry()[0] != startentry.getEntry()[0]) || (newentry.getEntry()[1] != startentry.getEntry()[1])) {
+                //When the current cycle finished, print it along with its length
+                StringBuilder line = new StringBuilder();
+                line.append("Cycle of length ").append(curcycle.size())
+                        .append(" : [ ");
+                for(int i=0; i<curcycle.size(); i++) {
                     
-                    int entrypos = positionOf(newentry, pairs);
-                    //System.out.println("Remove entry ("+newentry.getEntry()[0]+","+newentry.getEntry()[1]+") at position "+entrypos);
-                    pairs.removeElementAt(entrypos);
-                    pairs.trimToSize();
-                    curcycle.add(newentry);
-                    coord[0] = newentry.getEntry()[0]-1;
-                    coord[1] = newentry.getEntry()[1]-1;
+                    int code = curcycle.get(i);
+                    line.append('(').append(OLSEntry.first(code)).append(',')
+                            .append(OLSEntry.second(code)).append(") ");
                     
                 }
+                line.append(']');
+                System.out.println(line);
                 
-            } while((newentry.getEntry()[0] != startentry.getEntry()[0]) || (newentry.getEntry()[1] != startentry.getEntry()[1]));
+            }
+            
+        }
+        
+    }
+    
+    /**
+     * Compute the cycle type of the iteration of two OLS, that is the number
+     * of cycles of each length, without printing the cycles.
+     * 
+     * @param square1   first latin square
+     * @param square2   second latin square
+     * @return          a map from each cycle length to the number of cycles
+     *                  of that length
+     */
+    public static IntIntHashMap countOLSCycles(int[][] square1,
+            int[][] square2) {
+        
+        int n = square1.length;
+        boolean[] visited = new boolean[n*n];
+        IntQueue curcycle = new IntQueue(n*n);
+        IntIntHashMap lengths = new IntIntHashMap();
+        
+        for(int start=0; start<n*n; start++) {
             
-            //When the current cycle finished, print it along with its length
-            curcycle.trimToSize();
-            System.out.print("Cycle of length "+curcycle.capacity()+" : [ ");
-            for(int i=0; i<curcycle.capacity(); i++) {
+            if(!visited[start]) {
                 
-                int[] curcoord = curcycle.elementAt(i).getEntry();
-                System.out.print("("+curcoord[0]+","+curcoord[1]+") ");
+                curcycle.clear();
+                walkOLSCycle(square1, square2, start, visited, curcycle);
+                lengths.addTo(curcycle.size(), 1);
                 
             }
-            System.out.println("]");
             
         }
         
+        return lengths;
+        
+    }
+    
+    /**
+     * Iterate a pair of squares starting from a given pair (entries over
+     * 1..n) until a pair is repeated. Unlike decomposeOLSCycles, the squares
+     * need not be orthogonal, so the orbit may enter a cycle which does not
+     * contain the starting pair.
+     * 
+     * @param square1   first square
+     * @param square2   second square
+     * @param startrow  row of the starting pair (1..n)
+     * @param startcol  column of the starting pair (1..n)
+     * @return          the codes of the pairs of the orbit (see
+     *                  OLSEntry.encode), up to the first repetition excluded
+     */
+    public static IntQueue orbitOLS(int[][] square1, int[][] square2,
+            int startrow, int startcol) {
+        
+        IntQueue orbit = new IntQueue();
+        IntHashSet seen = new IntHashSet();
+        int row = startrow;
+        int col = startcol;
+        
+        while(seen.add(OLSEntry.encode(row, col))) {
+            
+            orbit.add(OLSEntry.encode(row, col));
+            int newrow = square1[row-1][col-1];
+            int newcol = square2[row-1][col-1];
+            row = newrow;
+            col = newcol;
+            
+        }
+        
+        return orbit;
+        
     }
     
 }
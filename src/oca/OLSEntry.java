@@ -4,7 +4,10 @@ package oca;
 
 /**
  * Class representing an entry in the superposition of two squares (i.e., a pair
- * of integers)
+ * of integers). The static methods encode a pair as a single int (first entry
+ * in the upper 16 bits, second entry in the lower 16 bits), so that the
+ * pair-level algorithms can work on primitive arrays and collections instead
+ * of allocating one object per pair.
  * 
  * @author Luca Mariot
  */
@@ -33,6 +36,63 @@ public class OLSEntry {
         this.entry = entry;
     }
     
+    /**
+     * Encode a pair of integers in a single int. Both entries must lie in the
+     * range 0..65535.
+     * 
+     * @param en1 first entry of the pair
+     * @param en2 second entry of the pair
+     * @return    the packed code of the pair
+     */
+    public static int encode(int en1, int en2) {
+        return (en1 << 16) | en2;
+    }
+    
+    /**
+     * Return the first entry of a pair encoded with encode().
+     * 
+     * @param code the packed code of a pair
+     * @return     the first entry of the pair
+     */
+    public static int first(int code) {
+        return code >>> 16;
+    }
+    
+    /**
+     * Return the second entry of a pair encoded with encode().
+     * 
+     * @param code the packed code of a pair
+     * @return     the second entry of the pair
+     */
+    public static int second(int code) {
+        return code & 0xFFFF;
+    }
+    
+    /**
+     * Return the packed code of this entry.
+     * 
+     * @return the code of the pair, as computed by encode()
+     */
+    public int toCode() {
+        return encode(entry[0], entry[1]);
+    }
     
+    @Override
+    public boolean equals(Object obj) {
+        
+        if(!(obj instanceof OLSEntry)) {
+            return false;
+        }
+        
+        int[] other = ((OLSEntry)obj).getEntry();
+        
+        return (entry[0] == other[0]) && (entry[1] == other[1]);
+        
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31*entry[0] + entry[1];
+    }
     
 }
@@ -20,24 +20,6 @@ public class OneDimCellAut {
     private int nbr;            //CA neighborhood
     private int offset;             //center of the neighborhood (cell to update)
 
-    /**
-     * Computes the transition function of a single cell of the CA, given in
-     * input its neighborhood.
-     * 
-     * @param nbrhood   the neighborhood of the cell
-     * @return          the value of the local rule corresponding to nbrhood
-     */
-    private boolean delta(boolean[] nbrhood) {
-        
-        int index = BinTools.bin2Dec(nbrhood);
-        boolean value = false;
-
-        value = rule[index];
-         
-        return value;
-
-    }
-    
     /**
      * Computes the second (switched) transition function of a single cell of
      * the CA, given in input its neighborhood.
@@ -113,23 +95,25 @@ public class OneDimCellAut {
         if(n > 2*r) {
             
             boolean[] nextConf = new boolean[cells.length-(2*r)];
+            int len = (2*r)+1;
+            int mask = (1 << len) - 1;
+            
+            //Index of the reversed neighborhood of the first cell, without
+            //its last bit. Since the representation of the truth table is in
+            //Least Significant Bit First order, the leftmost cell of the
+            //neighborhood is the most significant bit of the index.
+            int index = 0;
+            for(int j=0; j<len-1; j++) {
+                index = (index << 1) | BinTools.singleBool2Bin(cells[j]);
+            }
             
             for(int i=0; i<nextConf.length; i++) {
                 
-                //Build the neighborhood of the i-th cell
-                boolean[] nbrhood = new boolean[(2*r)+1];
-                for(int j=0; j<r; j++) {
-
-                    nbrhood[j] = cells[i+j];
-                    nbrhood[nbrhood.length-1-j] = cells[i+nbrhood.length-1-j];
-
-                }
-                
-                //Update the state of the i-th cell. The neighborhood has to
-                //be reversed, since the representation of the truth table is
-                //in Least Significant Bit First order.
-                nbrhood[r] = cells[i+r];
-                nextConf[i] = delta(BinTools.reverse(nbrhood));
+                //Slide the neighborhood by one cell and update the state of
+                //the i-th cell.
+                index = ((index << 1) | 
+                        BinTools.singleBool2Bin(cells[i+len-1])) & mask;
+                nextConf[i] = rule[index];
                 
             }
             
@@ -154,22 +138,23 @@ public class OneDimCellAut {
         //Check whether there are at least nbr cells to apply the local rule
         if(n >= nbr) {
             
+            //Index of the neighborhood of the first cell, without its last
+            //bit and shifted left by one position, so that the first slide
+            //aligns it (the leftmost cell is the least significant bit).
+            int index = 0;
+            for(int j=0; j<nbr-1; j++) {
+                index |= BinTools.singleBool2Bin(cells[j]) << (j+1);
+            }
+            
             for(int i=0; i<blocked.length; i++) {
                 
+                //Slide the neighborhood by one cell, also for blocked cells
+                index = (index >>> 1) |
+                        (BinTools.singleBool2Bin(cells[i+nbr-1]) << (nbr-1));
+                
                 if(!blocked[i]) {
                     //Apply local rule as usual
-                    //Build the neighborhood of the i-th cell
-                    boolean[] nbrhood = new boolean[nbr];
-                    for(int j=0; j<nbr; j++) {
-
-                        nbrhood[j] = cells[i+j];
-
-                    }
-
-                    //Update the state of the i-th cell. The neighborhood has to
-                    //be reversed, since the representation of the truth table is
-                    //in Least Significant Bit First order.
-                    nextConf[i] = delta(nbrhood);
+                    nextConf[i] = rule[index];
                     
                 } else {
                     
@@ -0,0 +1,156 @@
+package oca;
+
+
+import boolfun.BinTools;
+import java.math.BigInteger;
+
+/**
+ * Implementation of a 1-dimensional cellular automaton over the alphabet
+ * {0,...,q-1}, with no boundary conditions. Each cell is stored in a byte
+ * (so q can be at most 127), and the local rule is a lookup table of q^nbr
+ * entries. The local rule is given in the same order used by BinTools for
+ * n-ary strings, i.e. the value on the neighborhood (x_1,...,x_nbr) is stored
+ * in position x_1 + x_2*q + ... + x_nbr*q^(nbr-1). Internally, the table is
+ * reindexed with the leftmost cell as the most significant digit, so that the
+ * index of the neighborhood of cell i+1 is obtained from that of cell i with
+ * one subtraction, one multiplication and one addition.
+ *
+ * @author Luca Mariot
+ * @version 1.0
+ */
+
+public class QaryCellAut {
+
+    private int q;              //number of states of a cell
+    private int nbr;            //CA neighborhood (diameter of the rule)
+    private int[] rule;         //local rule (n-ary LSBF order)
+    private byte[] lut;         //local rule (leftmost cell most significant)
+    private int topweight;      //q^(nbr-1), weight of the leftmost cell
+    private byte[] cells;       //cells array
+
+    /**
+     * Class constructor.
+     *
+     * @param nCells the number of cells of the CA
+     * @param rule   the local rule of the CA, with q^nbr entries in 0..q-1
+     * @param q      the number of states of a cell
+     * @param nbr    the neighborhood of the CA
+     */
+    public QaryCellAut(int nCells, int[] rule, int q, int nbr) {
+
+        this.cells = new byte[nCells];
+        this.q = q;
+        this.nbr = nbr;
+        setRule(rule);
+
+    }
+
+    /**
+     * Builds the table of the local rule of given code, that is the q-ary
+     * string of q^nbr digits (LSBF order) representing code.
+     *
+     * @param code the code of the local rule
+     * @param q    the number of states of a cell
+     * @param nbr  the neighborhood of the CA
+     * @return     the table of the local rule
+     */
+    public static int[] ruleFromCode(BigInteger code, int q, int nbr) {
+
+        return BinTools.dec2Nary(code, (int)Math.pow(q, nbr), q);
+
+    }
+
+    /**
+     * Evolves the CA from its current configuration to the next, with no
+     * boundary conditions. This method shrinks the configuration length by
+     * nbr-1 cells.
+     */
+    public void nextConfNoBd() {
+
+        if(cells.length >= nbr) {
+
+            byte[] nextConf = new byte[cells.length-nbr+1];
+            evolve(cells, nextConf);
+            cells = nextConf;
+
+        }
+
+    }
+
+    /**
+     * Applies the local rule to all the neighborhoods of a configuration,
+     * storing the result in an array given by the caller.
+     *
+     * @param conf     a configuration of at least nbr cells
+     * @param nextConf the array where the next configuration is stored
+     *                 (conf.length-nbr+1 cells)
+     */
+    public void evolve(byte[] conf, byte[] nextConf) {
+
+        //Index of the neighborhood of the first cell
+        int index = 0;
+        for(int j=0; j<nbr; j++) {
+            index = index*q + conf[j];
+        }
+        nextConf[0] = lut[index];
+
+        //Slide the neighborhood by one cell: drop the leftmost digit and
+        //append the new rightmost one
+        for(int i=1; i<nextConf.length; i++) {
+
+            index = (index - conf[i-1]*topweight)*q + conf[i+nbr-1];
+            nextConf[i] = lut[index];
+
+        }
+
+    }
+
+    //Getters and setters methods
+
+    public byte[] getCells() {
+        return cells;
+    }
+
+    public void setCells(byte[] cells) {
+        this.cells = cells;
+    }
+
+    public int getQ() {
+        return q;
+    }
+
+    public int getNbr() {
+        return nbr;
+    }
+
+    public int[] getRule() {
+        return rule;
+    }
+
+    /**
+     * Sets the local rule, and rebuilds the internal lookup table.
+     *
+     * @param rule the local rule of the CA, with q^nbr entries in 0..q-1
+     */
+    public void setRule(int[] rule) {
+
+        this.rule = rule;
+        this.topweight = (int)Math.pow(q, nbr-1);
+        this.lut = new byte[rule.length];
+
+        //Reverse the digits of each index
+        int[] digits = new int[nbr];
+        for(int i=0; i<rule.length; i++) {
+
+            int temp = i;
+            for(int j=nbr-1; j>=0; j--) {
+                digits[j] = temp % q;
+                temp /= q;
+            }
+            lut[BinTools.nary2DecInt(digits, q)] = (byte)rule[i];
+
+        }
+
+    }
+
+}
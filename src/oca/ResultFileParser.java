@@ -0,0 +1,351 @@
+package oca;
+
+
+import boolfun.RuleId;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Vector;
+
+/**
+ * Streaming parser for the result files under experimental_data, which
+ * converts them in the columnar format of ResultTable. Two kinds of lines are
+ * recognized, all the others (headers, ANFs, blank lines) being skipped:
+ *
+ * - "Rule: r1 ... Rule: r2 ... [Order: k]" starts a new record, with the
+ *   two rules and, in the files of the enumeration algorithm, the order of
+ *   the Sylvester matrix;
+ * - "Cycle of length l : [...]" adds a cycle of length l to the cycle type
+ *   of the current record (files of the exhaustive search).
+ *
+ * A "Rule:" line without a second rule is rejected with an IOException.
+ *
+ * The file is read through a FileChannel in fixed-size blocks, and each line
+ * is scanned as bytes in a reusable buffer, so no String is built per line.
+ *
+ * @author Luca Mariot
+ */
+
+public class ResultFileParser {
+
+    /**
+     * Value of the order of the records which do not specify it (the orders
+     * printed by the enumeration algorithm are positive, or -1 if they do not
+     * divide the maximum period).
+     */
+    public static final long NO_ORDER = 0L;
+
+    private static final byte[] RULE = "Rule:".getBytes();
+    private static final byte[] ORDER = "Order:".getBytes();
+    private static final byte[] CYCLE = "Cycle of length".getBytes();
+    private static final int BLOCK = 1 << 16;
+
+    //Columns of the records parsed so far
+    private Vector<RuleId> rules1 = new Vector<RuleId>();
+    private Vector<RuleId> rules2 = new Vector<RuleId>();
+    private long[] orders = new long[16];
+    private int norders;
+    private IntQueue cycleOffsets = new IntQueue();
+    private IntQueue cycleLengths = new IntQueue();
+    private IntQueue cycleCounts = new IntQueue();
+
+    //Cycle type of the current record
+    private IntIntHashMap hist = new IntIntHashMap();
+
+    /**
+     * Parses a result file.
+     *
+     * @param path the result file
+     * @return     the records of the file in columnar form
+     * @throws IOException if the file cannot be read
+     */
+    public static ResultTable parse(Path path) throws IOException {
+
+        ResultFileParser parser = new ResultFileParser();
+        byte[] line = new byte[256];
+        int len = 0;
+
+        try(FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            ByteBuffer buf = ByteBuffer.allocateDirect(BLOCK);
+            while(ch.read(buf) != -1) {
+
+                buf.flip();
+                while(buf.hasRemaining()) {
+
+                    byte b = buf.get();
+                    if(b == '\n') {
+                        parser.parseLine(line, len);
+                        len = 0;
+                    } else {
+                        if(len == line.length) {
+                            byte[] bigger = new byte[2*line.length];
+                            System.arraycopy(line, 0, bigger, 0, len);
+                            line = bigger;
+                        }
+                        line[len++] = b;
+                    }
+
+                }
+                buf.clear();
+
+            }
+
+        }
+
+        parser.parseLine(line, len);
+
+        return parser.toTable();
+
+    }
+
+    /**
+     * Processes a single line of a result file.
+     */
+    private void parseLine(byte[] line, int len) throws IOException {
+
+        if(startsWith(line, len, 0, RULE)) {
+
+            closeRecord();
+
+            int[] span1 = ruleSpan(line, len, 0);
+            int[] span2 = ruleSpan(line, len, span1[1]);
+            rules1.add(RuleId.parseDec(line, span1[0], span1[1]));
+            rules2.add(RuleId.parseDec(line, span2[0], span2[1]));
+
+            int pos = indexOf(line, len, span2[1], ORDER);
+            addOrder((pos < 0) ? NO_ORDER :
+                    parseLong(line, len, pos+ORDER.length));
+
+        } else if(startsWith(line, len, 0, CYCLE)) {
+
+            hist.addTo(parseInt(line, len, CYCLE.length), 1);
+
+        }
+
+    }
+
+    /**
+     * Moves the cycle type of the current record (if any) to the columns.
+     * The cycles found before the first record belong to no record, and are
+     * discarded.
+     */
+    private void closeRecord() {
+
+        if(rules1.isEmpty()) {
+            hist.clear();
+            return;
+        }
+
+        cycleOffsets.add(cycleLengths.size());
+        int[] keys = hist.keys();
+        for(int k=0; k<keys.length; k++) {
+            cycleLengths.add(keys[k]);
+            cycleCounts.add(hist.get(keys[k], 0));
+        }
+        hist.clear();
+
+    }
+
+    private ResultTable toTable() {
+
+        closeRecord();
+
+        int nrec = rules1.size();
+        int ruleWords = 1;
+        for(int i=0; i<nrec; i++) {
+            ruleWords = Math.max(ruleWords, rules1.elementAt(i).usedWords());
+            ruleWords = Math.max(ruleWords, rules2.elementAt(i).usedWords());
+        }
+
+        long[] col1 = new long[nrec*ruleWords];
+        long[] col2 = new long[nrec*ruleWords];
+        long[] ord = new long[nrec];
+        int[] offsets = new int[nrec+1];
+        for(int i=0; i<nrec; i++) {
+
+            //The identifiers are left-aligned, the remaining words are zero
+            RuleId r1 = rules1.elementAt(i);
+            RuleId r2 = rules2.elementAt(i);
+            System.arraycopy(r1.getWords(), 0, col1, i*ruleWords,
+                    r1.usedWords());
+            System.arraycopy(r2.getWords(), 0, col2, i*ruleWords,
+                    r2.usedWords());
+            ord[i] = orders[i];
+            offsets[i] = cycleOffsets.get(i);
+
+        }
+        offsets[nrec] = cycleLengths.size();
+
+        return new ResultTable(nrec, ruleWords, col1, col2, ord, offsets,
+                toArray(cycleLengths), toArray(cycleCounts));
+
+    }
+
+    private void addOrder(long order) {
+
+        if(norders == orders.length) {
+            long[] bigger = new long[2*orders.length];
+            System.arraycopy(orders, 0, bigger, 0, norders);
+            orders = bigger;
+        }
+        orders[norders++] = order;
+
+    }
+
+    private static int[] toArray(IntQueue queue) {
+
+        int[] arr = new int[queue.size()];
+        for(int i=0; i<arr.length; i++) {
+            arr[i] = queue.get(i);
+        }
+
+        return arr;
+
+    }
+
+    private static boolean startsWith(byte[] line, int len, int from,
+            byte[] token) {
+
+        if(from+token.length > len) {
+            return false;
+        }
+        for(int k=0; k<token.length; k++) {
+            if(line[from+k] != token[k]) {
+                return false;
+            }
+        }
+
+        return true;
+
+    }
+
+    private static int indexOf(byte[] line, int len, int from, byte[] token) {
+
+        for(int i=from; i+token.length<=len; i++) {
+            if(startsWith(line, len, i, token)) {
+                return i;
+            }
+        }
+
+        return -1;
+
+    }
+
+    /**
+     * Returns the start and end of the digits of the first rule found from a
+     * given position, i.e. the first number following "Rule:".
+     *
+     * @throws IOException if there is no such rule in the line
+     */
+    private static int[] ruleSpan(byte[] line, int len, int from)
+            throws IOException {
+
+        int pos = indexOf(line, len, from, RULE);
+        if(pos >= 0) {
+            int[] span = digitSpan(line, len, pos+RULE.length);
+            if(span[0] < span[1]) {
+                return span;
+            }
+        }
+
+        throw new IOException("Malformed line, two rules expected: "+
+                new String(line, 0, len).trim());
+
+    }
+
+    /**
+     * Returns the start and end of the first sequence of digits found from a
+     * given position.
+     */
+    private static int[] digitSpan(byte[] line, int len, int from) {
+
+        int start = from;
+        while(start < len && (line[start] < '0' || line[start] > '9')) {
+            start++;
+        }
+        int end = start;
+        while(end < len && line[end] >= '0' && line[end] <= '9') {
+            end++;
+        }
+
+        return new int[]{start, end};
+
+    }
+
+    /**
+     * Parses the first (possibly negative) integer found from a given
+     * position, which must fit in an int.
+     */
+    private static int parseInt(byte[] line, int len, int from)
+            throws IOException {
+
+        long val = parseLong(line, len, from);
+        if(val != (int)val) {
+            throw new IOException("Value out of range: "+val);
+        }
+
+        return (int)val;
+
+    }
+
+    /**
+     * Parses the first (possibly negative) integer found from a given
+     * position, which must fit in a long.
+     */
+    private static long parseLong(byte[] line, int len, int from)
+            throws IOException {
+
+        int i = from;
+        while(i < len && line[i] != '-' && (line[i] < '0' || line[i] > '9')) {
+            i++;
+        }
+
+        boolean neg = (i < len && line[i] == '-');
+        if(neg) {
+            i++;
+        }
+
+        long val = 0;
+        while(i < len && line[i] >= '0' && line[i] <= '9') {
+            if(val > (Long.MAX_VALUE - (line[i]-'0'))/10) {
+                throw new IOException("Value out of range: "+
+                        new String(line, from, len-from).trim());
+            }
+            val = val*10 + (line[i]-'0');
+            i++;
+        }
+
+        return neg ? -val : val;
+
+    }
+
+    /**
+     * Converts result files in the binary format of ResultTable.
+     *
+     * @param args pairs of input and output files
+     */
+    public static void main(String[] args) throws IOException {
+
+        if(args.length == 0 || args.length % 2 != 0) {
+
+            System.err.println("Usage: java oca.ResultFileParser"
+                                +" infile outfile [infile outfile ...]");
+            System.exit(1);
+
+        }
+
+        for(int i=0; i<args.length; i+=2) {
+
+            ResultTable table = parse(Paths.get(args[i]));
+            table.write(Paths.get(args[i+1]));
+            System.out.println(args[i]+": "+table.getNrec()+" records");
+
+        }
+
+    }
+
+}
@@ -0,0 +1,205 @@
+package oca;
+
+
+import boolfun.RuleId;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Columnar representation of the results of the experiments on pairs of
+ * orthogonal CA (see ResultFileParser). Each record is a pair of rules, with
+ * the order of the associated Sylvester matrix (-1 if it does not divide the
+ * maximum period, ResultFileParser.NO_ORDER if not available) and the cycle
+ * type of the OLS iterations, stored as a histogram of (cycle length, number
+ * of cycles) pairs. The columns are stored in
+ * primitive arrays: the rule identifiers take ruleWords 64-bit words each,
+ * and the histograms of all records are concatenated, with an array of
+ * offsets marking where the histogram of each record starts.
+ *
+ * The binary format written by write() is a header (magic number, version,
+ * number of records, words per rule, number of histogram entries) followed
+ * by the columns in the same order as the fields below, all big-endian.
+ *
+ * @author Luca Mariot
+ */
+
+public class ResultTable {
+
+    public static final int MAGIC = 0x4F434152;     //"OCAR"
+    public static final int VERSION = 2;
+    private static final int HEADER_BYTES = 20;
+
+    private int nrec;           //number of records
+    private int ruleWords;      //number of words of each rule identifier
+    private long[] rules1;      //first rule of each record
+    private long[] rules2;      //second rule of each record
+    private long[] orders;      //order of each record
+    private int[] cycleOffsets; //start of the histogram of each record
+    private int[] cycleLengths; //cycle lengths of all histograms
+    private int[] cycleCounts;  //number of cycles of each length
+
+    public ResultTable(int nrec, int ruleWords, long[] rules1, long[] rules2,
+            long[] orders, int[] cycleOffsets, int[] cycleLengths,
+            int[] cycleCounts) {
+
+        this.nrec = nrec;
+        this.ruleWords = ruleWords;
+        this.rules1 = rules1;
+        this.rules2 = rules2;
+        this.orders = orders;
+        this.cycleOffsets = cycleOffsets;
+        this.cycleLengths = cycleLengths;
+        this.cycleCounts = cycleCounts;
+
+    }
+
+    /**
+     * Writes the table in binary form.
+     *
+     * @param path the output file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+
+        int nhist = cycleLengths.length;
+        long size = HEADER_BYTES + 16L*nrec*ruleWords + 8L*nrec +
+                4L*(nrec+1) + 8L*nhist;
+        ByteBuffer buf = ByteBuffer.allocate((int)size);
+
+        buf.putInt(MAGIC).putInt(VERSION).putInt(nrec).putInt(ruleWords)
+                .putInt(nhist);
+        buf.asLongBuffer().put(rules1).put(rules2).put(orders);
+        buf.position(buf.position() + 16*nrec*ruleWords + 8*nrec);
+        buf.asIntBuffer().put(cycleOffsets).put(cycleLengths)
+                .put(cycleCounts);
+
+        buf.clear();
+        try(FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            while(buf.hasRemaining()) {
+                ch.write(buf);
+            }
+
+        }
+
+    }
+
+    /**
+     * Reads a table written by write(), by memory-mapping the file.
+     *
+     * @param path the input file
+     * @return     the table stored in path
+     * @throws IOException if the file cannot be read or has a wrong format
+     */
+    public static ResultTable read(Path path) throws IOException {
+
+        try(FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0,
+                    ch.size());
+
+            if(buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                throw new IOException("Not a result table: "+path);
+            }
+
+            int nrec = buf.getInt();
+            int ruleWords = buf.getInt();
+            int nhist = buf.getInt();
+
+            long[] rules1 = new long[nrec*ruleWords];
+            long[] rules2 = new long[nrec*ruleWords];
+            long[] orders = new long[nrec];
+            buf.asLongBuffer().get(rules1).get(rules2).get(orders);
+            buf.position(buf.position() + 16*nrec*ruleWords + 8*nrec);
+
+            int[] cycleOffsets = new int[nrec+1];
+            int[] cycleLengths = new int[nhist];
+            int[] cycleCounts = new int[nhist];
+            buf.asIntBuffer().get(cycleOffsets).get(cycleLengths)
+                    .get(cycleCounts);
+
+            return new ResultTable(nrec, ruleWords, rules1, rules2, orders,
+                    cycleOffsets, cycleLengths, cycleCounts);
+
+        }
+
+    }
+
+    /**
+     * Returns the identifier of the first or second rule of a record.
+     *
+     * @param rec   the index of the record
+     * @param which 0 for the first rule, 1 for the second
+     * @return      the identifier of the rule
+     */
+    public RuleId getRule(int rec, int which) {
+
+        long[] col = (which == 0) ? rules1 : rules2;
+        long[] words = new long[ruleWords];
+        System.arraycopy(col, rec*ruleWords, words, 0, ruleWords);
+
+        return new RuleId(words, 64*ruleWords);
+
+    }
+
+    /**
+     * Returns the number of cycles of a given length in the cycle type of a
+     * record.
+     *
+     * @param rec the index of the record
+     * @param len a cycle length
+     * @return    the number of cycles of length len
+     */
+    public int getCycleCount(int rec, int len) {
+
+        for(int k=cycleOffsets[rec]; k<cycleOffsets[rec+1]; k++) {
+            if(cycleLengths[k] == len) {
+                return cycleCounts[k];
+            }
+        }
+
+        return 0;
+
+    }
+
+    //Getters
+
+    public int getNrec() {
+        return nrec;
+    }
+
+    public int getRuleWords() {
+        return ruleWords;
+    }
+
+    public long[] getRules1() {
+        return rules1;
+    }
+
+    public long[] getRules2() {
+        return rules2;
+    }
+
+    public long[] getOrders() {
+        return orders;
+    }
+
+    public int[] getCycleOffsets() {
+        return cycleOffsets;
+    }
+
+    public int[] getCycleLengths() {
+        return cycleLengths;
+    }
+
+    public int[] getCycleCounts() {
+        return cycleCounts;
+    }
+
+}